@@ -0,0 +1,91 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import com.jphya.audio.DummyAudioOutputStream;
+import com.jphya.resonator.ModalData;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * Shared set up for the benchmarks.
+ * @author Sam
+ *
+ */
+final class Bench {
+	
+	private Bench() {
+	}
+	
+	/**
+	 * A scene that renders offline into a dummy stream, so results don't depend on the wall clock budget.
+	 * @param storage "heap" for blocks backed by float arrays, otherwise direct buffers.
+	 */
+	static Scene newScene(String storage) {
+		DummyAudioOutputStream stream = new DummyAudioOutputStream();
+		Scene scene = new Scene(stream, (Block.INIT_NBLOCKFRAMES * stream.getSampleRate()) / 44100, "heap".equals(storage));
+		scene.setRealtime(false);
+		return scene;
+	}
+	
+	/**
+	 * Fill a block with repeatable noise in [-amplitude, amplitude).
+	 */
+	static Block noiseBlock(Scene scene, float amplitude, long seed) {
+		Block b = Block.newBlock(scene);
+		Random random = new Random(seed);
+		FloatBuffer f = b.getStart();
+		for (int i = 0; i < scene.getNFrames(); i++)
+			f.put(i, (random.nextFloat() * 2f - 1f) * amplitude);
+		return b;
+	}
+	
+	/**
+	 * Modal data with nModes modes spread over the audible range, with repeatable random damping and amplitude.
+	 */
+	static ModalData modalData(int nModes, long seed) {
+		Random random = new Random(seed);
+		StringBuilder md = new StringBuilder("1.0\t1.0\t1.0\n");
+		for (int m = 0; m < nModes; m++) {
+			float freq = 100f + random.nextFloat() * 8000f;
+			float damp = 1f + random.nextFloat() * 20f;
+			float amp = 0.05f + random.nextFloat();
+			md.append(freq).append('\t').append(damp).append('\t').append(amp).append('\n');
+		}
+		ModalData data = new ModalData();
+		try {
+			data.read(new ByteArrayInputStream(md.toString().getBytes("US-ASCII")));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return data;
+	}
+}
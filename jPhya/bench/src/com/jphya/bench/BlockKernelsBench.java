@@ -0,0 +1,112 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.distance.DistanceModel;
+import com.jphya.signal.BlockKernels;
+
+/**
+ * The block kernels on their own, scalar against whichever kernels this JVM selected.
+ * The two are the same unless java was started with the incubator vector module.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlockKernelsBench {
+	
+	@Param({"scalar", "selected"})
+	public String kernels;
+	
+	@Param({"128"})
+	public int frames;
+	
+	private BlockKernels k;
+	private float[] a;
+	private float[] b;
+	
+	@Setup
+	public void setup() {
+		k = "scalar".equals(kernels) ? BlockKernels.scalar() : BlockKernels.get();
+		a = new float[frames];
+		b = new float[frames];
+		for (int i = 0; i < frames; i++) {
+			a[i] = (float) Math.sin(i * 0.1) * 1000f;
+			b[i] = (float) Math.cos(i * 0.3) * 1000f;
+		}
+	}
+	
+	@Benchmark
+	public float[] add() {
+		k.add(a, b, 0, frames);
+		return a;
+	}
+	
+	@Benchmark
+	public float[] addWithMultiply() {
+		k.addWithMultiply(a, b, 0.5f, 0, frames);
+		return a;
+	}
+	
+	@Benchmark
+	public float[] copyWithMultiply() {
+		k.copyWithMultiply(a, b, 0.5f, 0, frames);
+		return a;
+	}
+	
+	@Benchmark
+	public float[] fadeout() {
+		// Fade a fresh copy, so the samples don't decay towards denormals.
+		k.copyWithMultiply(a, b, 1f, 0, frames);
+		k.fadeout(a, 0, frames, frames);
+		return a;
+	}
+	
+	@Benchmark
+	public float[] inverseSquareDistance() {
+		k.copyWithMultiply(a, b, 1f, 0, frames);
+		k.inverseSquareDistance(a, 2f, 0.01f, DistanceModel.minimnumDistance, 0, frames);
+		return a;
+	}
+}
@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.contact.FunctionContactGenerator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+import com.jphya.surface.Function;
+import com.jphya.surface.FunctionSurface;
+import com.jphya.surface.GridFunction;
+import com.jphya.surface.RandomFunction;
+import com.jphya.surface.UserFunction;
+import com.jphya.surface.WavFunction;
+import com.jphya.surface.WhiteFunction;
+
+/**
+ * Contact generator for each kind of surface function, one block per operation, at a steady slide.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContactGeneratorBench {
+	
+	@Param({"direct", "heap"})
+	public String storage;
+	
+	@Param({"grid", "random", "white", "wav", "user"})
+	public String function;
+	
+	private FunctionContactGenerator generator;
+	
+	@Setup
+	public void setup() {
+		Scene scene = Bench.newScene(storage);
+		FunctionSurface surface = new FunctionSurface(scene);
+		surface.setFun(newFunction(function));
+		
+		generator = (FunctionContactGenerator) surface.newContactGen();
+		generator.setOutput(Block.newBlock(scene));
+		generator.setSpeedBody1RelBody2(1f);
+		generator.setSpeedContactRelBody(1f);
+		generator.setContactForce(1f);
+	}
+	
+	@Benchmark
+	public Block tick() {
+		return generator.tick();
+	}
+	
+	private static Function newFunction(String name) {
+		if (name.equals("grid"))
+			return new GridFunction();
+		if (name.equals("random"))
+			return new RandomFunction();
+		if (name.equals("white"))
+			return new WhiteFunction();
+		if (name.equals("wav")) {
+			// A second of repeatable 8 bit noise.
+			int nFrames = 44100;
+			byte[] samples = new byte[nFrames + 1];
+			new Random(1).nextBytes(samples);
+			WavFunction wav = new WavFunction();
+			wav.setSoundData(ByteBuffer.wrap(samples), nFrames);
+			return wav;
+		}
+		if (name.equals("user"))
+			return new UserFunction();
+		throw new IllegalArgumentException(name);
+	}
+}
@@ -0,0 +1,99 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+import com.jphya.signal.Limiter;
+import com.jphya.signal.OutputBus;
+
+/**
+ * Output limiter, one block per operation, on a signal loud enough to keep it limiting.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LimiterBench {
+	
+	@Param({"direct", "heap"})
+	public String storage;
+	
+	// Below the limiter's threshold, or far enough above it to keep it limiting.
+	@Param({"10000", "60000"})
+	public float amplitude;
+	
+	private Limiter limiter;
+	private Block source;
+	private Block io;
+	private Limiter stereoLimiter;
+	private OutputBus bus;
+	
+	@Setup
+	public void setup() {
+		Scene scene = Bench.newScene(storage);
+		limiter = new Limiter(0.005f, 0.01f, 0.1f, scene);
+		source = Bench.noiseBlock(scene, amplitude, 1);
+		io = Block.newBlock(scene);
+		stereoLimiter = new Limiter(0.005f, 0.01f, 0.1f, scene, 2);
+		bus = new OutputBus(scene, 2);
+	}
+	
+	@Benchmark
+	public Block tick() {
+		io.copy(source);
+		return limiter.tick(io);
+	}
+	
+	/**
+	 * Linked stereo limiting of a bus, including the cost of panning the source into it.
+	 */
+	@Benchmark
+	public OutputBus tickStereo() {
+		bus.zero();
+		bus.addPanned(source, 0.3f, 0.3f);
+		stereoLimiter.tick(bus);
+		return bus;
+	}
+}
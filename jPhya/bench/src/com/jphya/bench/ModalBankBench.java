@@ -0,0 +1,132 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.resonator.ModalBank;
+import com.jphya.resonator.ModalData;
+import com.jphya.resonator.ModalResonator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * Many ringing modal resonators, one block per operation, ticked together by the scene's ModalBank or
+ * each on its own.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModalBankBench {
+	
+	@Param({"heap"})
+	public String storage;
+	
+	@Param({"16", "128"})
+	public int resonators;
+	
+	@Param({"10", "50"})
+	public int modes;
+	
+	/** Whether quiet modes are left out. The inputs are zero, so with culling the modes go to sleep. */
+	@Param({"false", "true"})
+	public boolean cull;
+	
+	private ModalBank bank;
+	private ModalResonator[] banked;
+	private ModalResonator[] separate;
+	
+	@Setup
+	public void setup() {
+		Scene scene = Bench.newScene(storage);
+		scene.tick(); // Make this the scene's audio thread.
+		bank = scene.getModalBank();
+		if (cull) {
+			scene.setModeQuietLevel(ModalResonator.MODE_QUIET_FRACTION);
+			scene.setModeMaskLevel(ModalResonator.MODE_MASK_LEVEL);
+		}
+		ModalData data = Bench.modalData(modes, 1);
+		banked = new ModalResonator[resonators];
+		separate = new ModalResonator[resonators];
+		for (int i = 0; i < resonators; i++) {
+			banked[i] = newResonator(scene, data, i);
+			banked[i].activate(); // Joins the bank.
+			separate[i] = newResonator(scene, data, i);
+		}
+	}
+	
+	private ModalResonator newResonator(Scene scene, ModalData data, int i) {
+		ModalResonator res = new ModalResonator(scene);
+		res.setData(data);
+		res.setAuxFreqScale(0.5f + i / (float) resonators);
+		res.setInput(Block.newBlock(scene));
+		res.setOutput(Block.newBlock(scene));
+		return res;
+	}
+	
+	@Setup(Level.Iteration)
+	public void clearOutputs() {
+		for (int i = 0; i < resonators; i++) {
+			banked[i].getOutput().zero();
+			separate[i].getOutput().zero();
+		}
+	}
+	
+	@Benchmark
+	public Block bank() {
+		bank.tick();
+		Block last = null;
+		for (ModalResonator res : banked)
+			last = res.tickAdd();
+		return last;
+	}
+	
+	@Benchmark
+	public Block separate() {
+		Block last = null;
+		for (ModalResonator res : separate)
+			last = res.tickAdd();
+		return last;
+	}
+}
@@ -0,0 +1,106 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.resonator.ModalResonator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * Modal resonator, one block per operation, driven by a constant noise input so that it never decays.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModalResonatorBench {
+	
+	@Param({"direct", "heap"})
+	public String storage;
+	
+	@Param({"10", "50", "100"})
+	public int modes;
+	
+	private ModalResonator resonator;
+	private ModalResonator modulated;
+	private int block = 0;
+	private Block input;
+	private Block output;
+	
+	@Setup
+	public void setup() {
+		Scene scene = Bench.newScene(storage);
+		resonator = new ModalResonator(scene);
+		resonator.setData(Bench.modalData(modes, 1));
+		modulated = new ModalResonator(scene);
+		modulated.setData(Bench.modalData(modes, 1));
+		modulated.setModulated(true);
+		input = Bench.noiseBlock(scene, 1f, 2);
+		output = Block.newBlock(scene);
+	}
+	
+	@Setup(Level.Iteration)
+	public void clearOutput() {
+		output.zero();
+	}
+	
+	@Benchmark
+	public Block tickAdd() {
+		return resonator.tickAdd(input, output);
+	}
+	
+	/** Modulated, with the frequency scale moving every block. */
+	@Benchmark
+	public Block tickAddModulated() {
+		modulated.setAuxFreqScale(1f + 0.01f * (block++ & 15));
+		return modulated.tickAdd(input, output);
+	}
+	
+	/** Reset, as on activation, which finds the resonator's coefficients again. */
+	@Benchmark
+	public void zero() {
+		resonator.zero();
+	}
+}
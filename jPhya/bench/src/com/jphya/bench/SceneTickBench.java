@@ -0,0 +1,158 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.jphya.body.Body;
+import com.jphya.contact.Contact;
+import com.jphya.contact.ContactDynamicData;
+import com.jphya.distance.InverseSquareDistanceModel;
+import com.jphya.impact.Impact;
+import com.jphya.impact.ImpactDynamicData;
+import com.jphya.resonator.ModalData;
+import com.jphya.resonator.ModalResonator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+import com.jphya.surface.FunctionSurface;
+import com.jphya.surface.GridFunction;
+
+/**
+ * A whole scene tick, one block per operation.
+ * There are as many bodies as resonators. Each contact slides one body against the next, and the
+ * impacts are topped up each block, so that the load stays steady.
+ * @author Sam
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneTickBench {
+	
+	@Param({"direct", "heap"})
+	public String storage;
+	
+	@Param({"16"})
+	public int resonators;
+	
+	@Param({"8"})
+	public int contacts;
+	
+	@Param({"4"})
+	public int impacts;
+	
+	@Param({"50"})
+	public int modes;
+	
+	/** The scene's detail level. 0 runs every mode. */
+	@Param({"0", "1"})
+	public float detail;
+	
+	/** The bodies are spread out to this distance from the listener, with inverse square falloff. 0 places them all at the listener. */
+	@Param({"0", "20"})
+	public float distance;
+	
+	private Scene scene;
+	private Body[] bodies;
+	private int nextImpact = 0;
+	
+	@Setup
+	public void setup() {
+		scene = Bench.newScene(storage);
+		scene.setDetailLevel(detail);
+		
+		GridFunction grid = new GridFunction();
+		grid.setMark(0.02f);
+		FunctionSurface surface = new FunctionSurface(scene);
+		surface.setFun(grid);
+		surface.setContactMasterGain(20000f);
+		surface.setRateAtSpeed(44f, 1f);
+		
+		ModalData data = Bench.modalData(modes, 1);
+		bodies = new Body[resonators];
+		for (int i = 0; i < resonators; i++) {
+			ModalResonator res = new ModalResonator(scene);
+			res.setData(data);
+			res.setAuxFreqScale(0.5f + i / (float) resonators);
+			bodies[i] = new Body();
+			bodies[i].setResonator(res);
+			bodies[i].setSurface(surface);
+			if (distance > 0) {
+				float d = distance * (i + 1) / resonators;
+				bodies[i].setDistanceModel(new InverseSquareDistanceModel());
+				bodies[i].setCurrentDistance(d);
+				bodies[i].setPreviousDistance(d);
+			}
+		}
+		
+		for (int i = 0; i < contacts; i++) {
+			Contact c = Contact.newContact(scene);
+			c.setBody1(bodies[i % resonators]);
+			c.setBody2(bodies[(i + 1) % resonators]);
+			ContactDynamicData d = new ContactDynamicData();
+			d.contactForce = 0.5f;
+			d.speedContactRelBody1 = 1f;
+			d.speedContactRelBody2 = 1f;
+			d.speedBody1RelBody2 = 1f;
+			c.setDynamicData(d);
+		}
+		
+		// Apply the changes queued during set up, and make this the scene's audio thread.
+		scene.tick();
+	}
+	
+	@Benchmark
+	public Block tick() {
+		topUpImpacts();
+		return scene.tick();
+	}
+	
+	private void topUpImpacts() {
+		for (int i = scene.getActiveImpacts().size(); i < impacts; i++) {
+			Impact im = Impact.newImpact(scene);
+			im.setBody1(bodies[nextImpact++ % resonators]);
+			ImpactDynamicData d = new ImpactDynamicData();
+			d.impactImpulse = 1f;
+			d.relNormalSpeedAtImpact = 1f;
+			im.setDynamicData(d);
+		}
+	}
+}
@@ -1,57 +1,65 @@
-/*
-Copyright (c) 2009, Sam Bayless
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.audio;
-
-import java.nio.ByteBuffer;
-
-/**
- * This simple interface connects JPhya to a user specified audio library.
- * @author Sam
- *
- */
-public interface AudioOutputStream {
-
-	/**
-	 * Write the given frames to the output stream. This method may or may not be blocking, depending on the implementation.
-	 * Frames is the number of samples in the buffer to write (for example, if the buffer contains, 16 bit shorts, then there is 1 frame for each byte)
-	 * @param start
-	 * @param frames
-	 */
-	public void writeSamples(ByteBuffer start, int frames);
-	
-	public int getSampleRate();
-
-	public void close();
-	
-	/*int calcnDeviceBufferSamplesToFill();
-
-	//If non blocking writing is wanted, just implement a non-blocking output stream. Should not be part of the itnerface.
-	int writeSamplesWithoutBlocking(ByteBuffer start, int frames);
-
-	int calcnDeviceBufferSamplesToFillAdaptively();
-*/
-
-}
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.audio;
+
+import java.nio.ByteBuffer;
+
+/**
+ * This simple interface connects JPhya to a user specified audio library.
+ * @author Sam
+ *
+ */
+public interface AudioOutputStream {
+
+	/**
+	 * Write the given frames to the output stream. This method may or may not be blocking, depending on the implementation.
+	 * Frames is the number of samples in the buffer to write (for example, if the buffer contains, 16 bit shorts, then there is 1 frame for each byte)
+	 * With several channels, each frame is one sample per channel, interleaved.
+	 * @param start
+	 * @param frames
+	 */
+	public void writeSamples(ByteBuffer start, int frames);
+	
+	public int getSampleRate();
+
+	/**
+	 * The number of channels in each frame. A scene renders as many channels as its stream takes.
+	 */
+	public default int getChannels() {
+		return 1;
+	}
+
+	public void close();
+	
+	/*int calcnDeviceBufferSamplesToFill();
+
+	//If non blocking writing is wanted, just implement a non-blocking output stream. Should not be part of the itnerface.
+	int writeSamplesWithoutBlocking(ByteBuffer start, int frames);
+
+	int calcnDeviceBufferSamplesToFillAdaptively();
+*/
+
+}
@@ -0,0 +1,153 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.audio;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes the scene's output to a 16 bit mono PCM WAV file, for offline rendering.
+ * Blocks are converted into a reusable buffer and written straight to a FileChannel; the sizes in the
+ * header are filled in by close().
+ * @author Sam
+ *
+ */
+public class WavFileOutputStream implements AudioOutputStream {
+
+	private static final int HEADER_SIZE = 44;
+	
+	private final int sampleRate;
+	private final int channels;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private ByteBuffer pcm = ByteBuffer.allocateDirect(4096).order(ByteOrder.LITTLE_ENDIAN);
+	private long dataSize = 0;
+	private boolean closed = false;
+	
+	public WavFileOutputStream(File file, int sampleRate) throws IOException {
+		this(file, sampleRate, 1);
+	}
+	
+	public WavFileOutputStream(File file, int sampleRate, int channels) throws IOException {
+		this.sampleRate = sampleRate;
+		this.channels = channels;
+		this.file = new RandomAccessFile(file, "rw");
+		this.file.setLength(0);
+		this.channel = this.file.getChannel();
+		
+		// Header with zero sizes, patched on close.
+		writeHeader();
+	}
+	
+	public void writeSamples(ByteBuffer start, int frames) {
+		if (closed)
+			return;
+		
+		int samples = frames * channels;
+		if (pcm.capacity() < samples * 2)
+			pcm = ByteBuffer.allocateDirect(samples * 2).order(ByteOrder.LITTLE_ENDIAN);
+		pcm.clear();
+		
+		// Same conversion as the LWJGL stream: samples are already scaled to the 16 bit range.
+		FloatBuffer f = start.duplicate().order(start.order()).asFloatBuffer();
+		for (int i = 0; i < samples; i++) {
+			long sample = (long) f.get(i);
+			if (sample > Short.MAX_VALUE)
+				sample = Short.MAX_VALUE;
+			if (sample < Short.MIN_VALUE)
+				sample = Short.MIN_VALUE;
+			pcm.putShort((short) sample);
+		}
+		pcm.flip();
+		
+		try {
+			while (pcm.hasRemaining())
+				channel.write(pcm);
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to write WAV data", e);
+		}
+		dataSize += samples * 2;
+	}
+	
+	public int getSampleRate() {
+		return sampleRate;
+	}
+	
+	public int getChannels() {
+		return channels;
+	}
+	
+	/**
+	 * Return the number of frames written so far.
+	 */
+	public long getFramesWritten() {
+		return dataSize / (2 * channels);
+	}
+	
+	/**
+	 * Fill in the header and close the file.
+	 */
+	public void close() {
+		if (closed)
+			return;
+		closed = true;
+		try {
+			try {
+				channel.position(0);
+				writeHeader();
+			} finally {
+				file.close();
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Unable to finish WAV file", e);
+		}
+	}
+	
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put((byte) 'R').put((byte) 'I').put((byte) 'F').put((byte) 'F');
+		header.putInt((int) (36 + dataSize));
+		header.put((byte) 'W').put((byte) 'A').put((byte) 'V').put((byte) 'E');
+		header.put((byte) 'f').put((byte) 'm').put((byte) 't').put((byte) ' ');
+		header.putInt(16); // fmt chunk size
+		header.putShort((short) 1); // PCM
+		header.putShort((short) channels); // Channels
+		header.putInt(sampleRate);
+		header.putInt(sampleRate * 2 * channels); // Byte rate
+		header.putShort((short) (2 * channels)); // Block align
+		header.putShort((short) 16); // Bits per sample
+		header.put((byte) 'd').put((byte) 'a').put((byte) 't').put((byte) 'a');
+		header.putInt((int) dataSize);
+		header.flip();
+		while (header.hasRemaining())
+			channel.write(header);
+	}
+}
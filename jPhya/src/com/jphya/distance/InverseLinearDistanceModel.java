@@ -1,48 +1,64 @@
-/*
-Copyright (c) 2009, Sam Bayless
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.distance;
-
-import java.nio.FloatBuffer;
-
-import com.jphya.signal.Block;
-
-public class InverseLinearDistanceModel implements DistanceModel {
-
-	public void applyDistanceModel(float distanceStart, float distanceEnd, Block applyTo) {
-		
-			float slope = (distanceEnd - distanceStart)/ ((float)applyTo.getNFrames());
-			FloatBuffer f = applyTo.getStart();
-			for(int i = 0;i<applyTo.getNFrames();i++)
-			{	
-				float dist = slope*((float)i) + distanceStart;
-				if(dist<minimnumDistance)
-					dist = 1f;
-				f.put(i,f.get(i)/ dist);
-			}
-		
-	}
-
-}
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.distance;
+
+import java.nio.FloatBuffer;
+
+import com.jphya.signal.Block;
+import com.jphya.signal.BlockKernels;
+
+public class InverseLinearDistanceModel implements DistanceModel {
+
+	public void applyDistanceModel(float distanceStart, float distanceEnd, Block applyTo) {
+		
+			float slope = (distanceEnd - distanceStart)/ ((float)applyTo.getNFrames());
+			if (applyTo.isZero())
+				return;
+			int start = applyTo.getLiveStart();
+			int end = applyTo.getLiveEnd();
+			float[] a = applyTo.getLiveArray();
+			if (a != null) {
+				BlockKernels.get().inverseDistance(a, distanceStart, slope, minimnumDistance, start, end);
+				return;
+			}
+			FloatBuffer f = applyTo.getLiveBuffer();
+			for(int i = start;i<end;i++)
+			{	
+				float dist = slope*((float)i) + distanceStart;
+				if(dist<minimnumDistance)
+					dist = 1f;
+				f.put(i,f.get(i)/ dist);
+			}
+		
+	}
+
+	public float getGain(float distance) {
+		if(distance<minimnumDistance)
+			distance = 1f;
+		return 1f/distance;
+	}
+
+}
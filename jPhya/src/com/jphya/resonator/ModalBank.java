@@ -0,0 +1,344 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.resonator;
+
+import java.util.Arrays;
+
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * The modes of all the active modal resonators in a scene, packed into flat arrays.
+ * <p>
+ * Each resonator has a contiguous segment of the bank holding its active modes: their coefficients, copied
+ * from the resonator whenever it calculates them, and their state, which lives here while the resonator is
+ * active. Resonators join when activated and leave when deactivated, and the bank is compacted so the
+ * segments stay in one run.
+ * <p>
+ * tick() runs every mode of every resonator one sample at a time, in a single loop over the bank that
+ * the JIT can vectorise, instead of ticking each resonator's modes separately. Each resonator's modes
+ * are summed in order into its own output, which its next tick() returns. The output is the same as
+ * the resonator ticking itself.
+ * When some resonators have quiet modes, the live modes are gathered into separate arrays for the loop,
+ * and their state put back after it. Modulated resonators are left out of the loop and tick their own
+ * segment.
+ * Only the audio thread uses the bank.
+ * @author Sam
+ *
+ */
+public final class ModalBank {
+
+	private static final int INIT_NMODES = 1024;
+	private static final int INIT_NRESONATORS = 16;
+
+	private final Scene scene;
+
+	// Coefficients and state of each mode in the bank.
+	private float[] m_cplus = new float[INIT_NMODES];
+	private float[] m_cminus = new float[INIT_NMODES];
+	private float[] m_aa = new float[INIT_NMODES];
+	private float[] m_u = new float[INIT_NMODES];
+	private float[] m_v = new float[INIT_NMODES];
+	private float[] m_drive = new float[INIT_NMODES]; // Input to each mode for the current sample. Zero for resonators without input.
+	private int m_nModes = 0;
+
+	// Resonator r has the modes from m_offsets[r] to m_offsets[r + 1].
+	private ModalResonator[] m_members = new ModalResonator[INIT_NRESONATORS];
+	private int[] m_offsets = new int[INIT_NRESONATORS + 1];
+	private float[][] m_outputs = new float[INIT_NRESONATORS][]; // Summed output of each resonator.
+	private int m_nMembers = 0;
+
+	// Resonators with input this block, and their input samples.
+	private int[] m_driven = new int[INIT_NRESONATORS];
+	private float[][] m_inputs = new float[INIT_NRESONATORS][];
+
+	// The live modes, gathered from the bank when some modes are quiet. Resonator r has the live modes from
+	// m_liveOffsets[r] to m_liveOffsets[r + 1], which came from the bank at m_slots.
+	private float[] m_liveCplus = new float[INIT_NMODES];
+	private float[] m_liveCminus = new float[INIT_NMODES];
+	private float[] m_liveAa = new float[INIT_NMODES];
+	private float[] m_liveU = new float[INIT_NMODES];
+	private float[] m_liveV = new float[INIT_NMODES];
+	private int[] m_slots = new int[INIT_NMODES];
+	private int[] m_liveOffsets = new int[INIT_NRESONATORS + 1];
+
+	private float m_nsPerCost = 0f;
+
+	public ModalBank(Scene scene) {
+		this.scene = scene;
+	}
+
+	public int getNResonators() {
+		return m_nMembers;
+	}
+
+	public int getNModes() {
+		return m_nModes;
+	}
+
+	/**
+	 * Add a resonator's active modes to the end of the bank. Its state is moved into the bank.
+	 */
+	void add(ModalResonator res) {
+		int n = res.m_nActiveModes;
+		if (m_nMembers == m_members.length)
+			growMembers();
+		if (m_nModes + n > m_u.length)
+			growModes(m_nModes + n);
+
+		int r = m_nMembers++;
+		int offset = m_nModes;
+		m_nModes += n;
+		m_members[r] = res;
+		m_offsets[r + 1] = m_nModes;
+
+		System.arraycopy(res.m_u, 0, m_u, offset, n);
+		System.arraycopy(res.m_v, 0, m_v, offset, n);
+		res.m_bank = this;
+		res.m_bankIndex = r;
+		res.bindState(m_u, m_v, offset);
+		load(res);
+	}
+
+	/**
+	 * Take a resonator out of the bank, moving its state back to its own arrays, and close the gap.
+	 */
+	void remove(ModalResonator res) {
+		int r = res.m_bankIndex;
+		int offset = m_offsets[r];
+		int n = m_offsets[r + 1] - offset;
+		float[] u = res.getOwnU();
+		float[] v = res.getOwnV();
+		System.arraycopy(m_u, offset, u, 0, n);
+		System.arraycopy(m_v, offset, v, 0, n);
+		res.bindState(u, v, 0);
+		res.m_bank = null;
+		res.m_bankIndex = -1;
+		res.m_rendered = false;
+		res.m_controlled = false;
+
+		int tail = m_nModes - offset - n;
+		System.arraycopy(m_cplus, offset + n, m_cplus, offset, tail);
+		System.arraycopy(m_cminus, offset + n, m_cminus, offset, tail);
+		System.arraycopy(m_aa, offset + n, m_aa, offset, tail);
+		System.arraycopy(m_u, offset + n, m_u, offset, tail);
+		System.arraycopy(m_v, offset + n, m_v, offset, tail);
+		m_nModes -= n;
+
+		// Keep the output array for reuse, at the end.
+		float[] output = m_outputs[r];
+		for (int i = r + 1; i < m_nMembers; i++) {
+			ModalResonator moved = m_members[i];
+			m_members[i - 1] = moved;
+			m_outputs[i - 1] = m_outputs[i];
+			m_offsets[i] = m_offsets[i + 1] - n;
+			moved.m_bankIndex = i - 1;
+			moved.bindState(m_u, m_v, m_offsets[i - 1]);
+		}
+		m_nMembers--;
+		m_members[m_nMembers] = null;
+		m_outputs[m_nMembers] = output;
+	}
+
+	/**
+	 * Copy a resonator's coefficients into its segment.
+	 */
+	void load(ModalResonator res) {
+		int offset = m_offsets[res.m_bankIndex];
+		int n = m_offsets[res.m_bankIndex + 1] - offset;
+		ModalCoefficients c = res.m_coeffs;
+		System.arraycopy(c.cplus, 0, m_cplus, offset, n);
+		System.arraycopy(c.cminus, 0, m_cminus, offset, n);
+		float amp = res.m_auxAmpScale;
+		for (int m = 0; m < n; m++)
+			m_aa[offset + m] = c.aa[m] * amp;
+	}
+
+	/**
+	 * Tick every resonator in the bank for one block. Each resonator's control input is processed first,
+	 * as its own tick would. Their outputs are picked up by their next tick() or tickAdd().
+	 */
+	public void tick() {
+		int nMembers = m_nMembers;
+		if (nMembers == 0)
+			return;
+		long startTime = System.nanoTime();
+		int nFrames = scene.getNFrames();
+
+		int nDriven = 0;
+		long cost = 0;
+		int nLive = 0;
+		boolean skipped = false;
+		for (int r = 0; r < nMembers; r++) {
+			ModalResonator res = m_members[r];
+			res.processControlInput();
+			if (m_outputs[r] == null || m_outputs[r].length < nFrames)
+				m_outputs[r] = new float[scene.getNMaxFrames()];
+			if (res.m_modRunning) {
+				// Modulated resonators interpolate their coefficients, so they tick themselves.
+				res.m_controlled = true;
+				skipped = true;
+				continue;
+			}
+			cost += res.getTimeCost();
+
+			// Most blocks a resonator is just ringing, with no input to add.
+			Block in = res.getInput();
+			if (in != null && !in.isZero()) {
+				res.wake();
+				if (m_inputs[nDriven] == null || m_inputs[nDriven].length < nFrames)
+					m_inputs[nDriven] = new float[scene.getNMaxFrames()];
+				in.copyTo(m_inputs[nDriven]);
+				m_driven[nDriven++] = r;
+			}
+			nLive += res.m_nLive;
+		}
+
+		if (nLive == 0) {
+			for (int r = 0; r < nMembers; r++)
+				Arrays.fill(m_outputs[r], 0, nFrames, 0f);
+		} else if (nLive == m_nModes && !skipped) {
+			run(m_cplus, m_cminus, m_aa, m_u, m_v, m_offsets, nDriven, nFrames);
+		} else {
+			gather();
+			run(m_liveCplus, m_liveCminus, m_liveAa, m_liveU, m_liveV, m_liveOffsets, nDriven, nFrames);
+			for (int k = 0; k < nLive; k++) {
+				m_u[m_slots[k]] = m_liveU[k];
+				m_v[m_slots[k]] = m_liveV[k];
+			}
+		}
+
+		for (int r = 0; r < nMembers; r++) {
+			ModalResonator res = m_members[r];
+			if (res.m_modRunning)
+				continue;
+			res.m_bankOutput = m_outputs[r];
+			res.m_rendered = true;
+		}
+
+		m_nsPerCost = (System.nanoTime() - startTime) / (float) Math.max(1, cost);
+	}
+
+	/**
+	 * Run the modes in the given arrays for one block, and sum each resonator's modes into its output.
+	 */
+	private void run(float[] cp, float[] cm, float[] aa, float[] u, float[] v, int[] offsets, int nDriven, int nFrames) {
+		int nMembers = m_nMembers;
+		int nModes = offsets[nMembers];
+		float[] w = m_drive;
+
+		for (int i = 0; i < nFrames; i++) {
+			for (int d = 0; d < nDriven; d++) {
+				int r = m_driven[d];
+				float x = m_inputs[d][i];
+				for (int m = offsets[r]; m < offsets[r + 1]; m++)
+					w[m] = aa[m] * x;
+			}
+
+			// Same recurrence as ModalResonator.tickAdd(). The drive is zero for resonators without input.
+			for (int m = 0; m < nModes; m++) {
+				float uPrev = u[m];
+				float vPrev = v[m];
+				u[m] = cm[m] * uPrev - vPrev + w[m] + ModalResonator.DENORMALISATION_EPSILON;
+				v[m] = cp[m] * vPrev + uPrev;
+			}
+
+			for (int r = 0; r < nMembers; r++) {
+				float sum = 0f;
+				for (int m = offsets[r]; m < offsets[r + 1]; m++)
+					sum += v[m];
+				m_outputs[r][i] = sum;
+			}
+		}
+
+		for (int d = 0; d < nDriven; d++) {
+			int r = m_driven[d];
+			Arrays.fill(w, offsets[r], offsets[r + 1], 0f);
+		}
+	}
+
+	/**
+	 * Gather the coefficients and state of each resonator's live modes into the live arrays.
+	 */
+	private void gather() {
+		int k = 0;
+		for (int r = 0; r < m_nMembers; r++) {
+			ModalResonator res = m_members[r];
+			int offset = m_offsets[r];
+			int[] live = res.m_live;
+			int nLive = res.m_modRunning ? 0 : res.m_nLive;
+			m_liveOffsets[r] = k;
+			for (int j = 0; j < nLive; j++, k++) {
+				int slot = offset + live[j];
+				m_slots[k] = slot;
+				m_liveCplus[k] = m_cplus[slot];
+				m_liveCminus[k] = m_cminus[slot];
+				m_liveAa[k] = m_aa[slot];
+				m_liveU[k] = m_u[slot];
+				m_liveV[k] = m_v[slot];
+			}
+		}
+		m_liveOffsets[m_nMembers] = k;
+	}
+
+	/**
+	 * The share of the time of the last tick() taken by a resonator, in proportion to its time cost,
+	 * or 0 if it is not in the bank.
+	 */
+	public long getTimeShare(Resonator res) {
+		if (!(res instanceof ModalResonator) || ((ModalResonator) res).m_bank != this || ((ModalResonator) res).m_modRunning)
+			return 0;
+		return (long) (m_nsPerCost * res.getTimeCost());
+	}
+
+	private void growModes(int nModes) {
+		int capacity = Math.max(nModes, m_u.length * 2);
+		m_cplus = Arrays.copyOf(m_cplus, capacity);
+		m_cminus = Arrays.copyOf(m_cminus, capacity);
+		m_aa = Arrays.copyOf(m_aa, capacity);
+		m_u = Arrays.copyOf(m_u, capacity);
+		m_v = Arrays.copyOf(m_v, capacity);
+		m_drive = Arrays.copyOf(m_drive, capacity);
+		m_liveCplus = new float[capacity];
+		m_liveCminus = new float[capacity];
+		m_liveAa = new float[capacity];
+		m_liveU = new float[capacity];
+		m_liveV = new float[capacity];
+		m_slots = new int[capacity];
+		for (int r = 0; r < m_nMembers; r++)
+			m_members[r].bindState(m_u, m_v, m_offsets[r]);
+	}
+
+	private void growMembers() {
+		int capacity = m_members.length * 2;
+		m_members = Arrays.copyOf(m_members, capacity);
+		m_offsets = Arrays.copyOf(m_offsets, capacity + 1);
+		m_liveOffsets = new int[capacity + 1];
+		m_outputs = Arrays.copyOf(m_outputs, capacity);
+		m_driven = Arrays.copyOf(m_driven, capacity);
+		m_inputs = Arrays.copyOf(m_inputs, capacity);
+	}
+}
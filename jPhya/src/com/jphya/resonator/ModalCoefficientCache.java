@@ -0,0 +1,311 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.resonator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The coefficient sets of a scene's modal resonators, keyed by their modal data, frequency and damping scales,
+ * contact damping and sample rate. Resonators sharing a .md file and scales share one set, so activating or
+ * zeroing a resonator usually finds its coefficients here instead of calculating them.
+ * <p>
+ * Contact damping is quantized to CONTACT_DAMPING_STEP, so that contacts varying it slightly don't
+ * each make a new set.
+ * <p>
+ * The cache holds at most MAX_SETS sets. Beyond that the oldest set is dropped; a resonator still using it
+ * keeps it, and it is calculated again if it is wanted later. A set takes 5 floats per mode, so a full cache
+ * of 100 mode sets is about 2MB.
+ * <p>
+ * On the audio thread sets that aren't cached are calculated on a background worker, with calculateLater(),
+ * so that a resonator keeps playing its old coefficients until the new ones are ready instead of holding
+ * up the block. get() calculates on the calling thread, so it is for other threads, and offline rendering,
+ * which waits for the coefficients to stay repeatable.
+ * <p>
+ * The cache is used from the audio thread, the parallel workers and its worker without locks. Looking a set
+ * up doesn't allocate. The worker thread is started by the first calculateLater(), and stopped by shutdown(),
+ * which Scene.close() calls.
+ * @author Sam
+ *
+ */
+public final class ModalCoefficientCache {
+
+	/**
+	 * The most sets cached. The oldest are dropped beyond this.
+	 */
+	public static final int MAX_SETS = 1024;
+	public static final float CONTACT_DAMPING_STEP = 1f / 64f;
+
+	private final ConcurrentHashMap<Key, ModalCoefficients> m_sets = new ConcurrentHashMap<Key, ModalCoefficients>();
+	private final ConcurrentLinkedQueue<Key> m_order = new ConcurrentLinkedQueue<Key>(); // Oldest first.
+
+	// Each thread looks sets up with its own key, so that lookups don't allocate.
+	private final ThreadLocal<Key> m_probe = new ThreadLocal<Key>() {
+		protected Key initialValue() {
+			return new Key();
+		}
+	};
+
+	// Requests for the worker, newest first.
+	private final AtomicReference<Request> m_requests = new AtomicReference<Request>();
+	private volatile Thread m_worker = null;
+	private volatile boolean m_shutdown = false;
+
+	/**
+	 * Return the cached coefficients for the data at these scales, or null.
+	 */
+	ModalCoefficients find(ModalData data, float freqScale, float dampScale, float contactDamping, float fps) {
+		Key probe = m_probe.get();
+		probe.set(data, freqScale, dampScale, quantize(contactDamping), fps);
+		ModalCoefficients c = m_sets.get(probe);
+		probe.data = null;
+		return c;
+	}
+
+	/**
+	 * Return the coefficients for the data at these scales, calculating them on the calling thread if
+	 * they aren't cached.
+	 */
+	ModalCoefficients get(ModalData data, float freqScale, float dampScale, float contactDamping, float fps) {
+		ModalCoefficients c = find(data, freqScale, dampScale, contactDamping, fps);
+		if (c == null) {
+			Key key = new Key();
+			key.set(data, freqScale, dampScale, quantize(contactDamping), fps);
+			c = new ModalCoefficients(data, key.freqScale, key.dampScale, key.contactDamping, key.fps);
+			ModalCoefficients had = m_sets.putIfAbsent(key, c);
+			if (had != null)
+				return had;
+			m_order.add(key);
+			while (m_sets.size() > MAX_SETS) {
+				Key oldest = m_order.poll();
+				if (oldest == null)
+					break;
+				m_sets.remove(oldest);
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * Calculate the set asked for by the request on the worker. The request must not be busy. Its result is
+	 * published once the set is ready, and the set is then cached, unless it was calculated into a set of
+	 * the resonator's own.
+	 * After shutdown() the set is calculated straight away instead.
+	 */
+	void calculateLater(Request r) {
+		r.result = null;
+		r.busy = true;
+		if (m_shutdown) {
+			serve(r);
+			return;
+		}
+		Request head;
+		do {
+			head = m_requests.get();
+			r.next = head;
+		} while (!m_requests.compareAndSet(head, r));
+		Thread worker = m_worker;
+		if (worker == null)
+			worker = startWorker();
+		LockSupport.unpark(worker);
+		// The worker may have made its last drain between the check above and the push.
+		if (m_shutdown)
+			drain();
+	}
+
+	private synchronized Thread startWorker() {
+		// Only the first request takes the lock.
+		if (m_worker == null) {
+			Thread t = new Thread(new Runnable() {
+				public void run() {
+					work();
+				}
+			}, "jPhya modal coefficients");
+			t.setDaemon(true);
+			t.start();
+			m_worker = t;
+		}
+		return m_worker;
+	}
+
+	private void work() {
+		while (!m_shutdown) {
+			Request r = m_requests.getAndSet(null);
+			if (r == null) {
+				LockSupport.park(this);
+				continue;
+			}
+			// Serve them in the order they were asked for.
+			Request first = null;
+			while (r != null) {
+				Request next = r.next;
+				r.next = first;
+				first = r;
+				r = next;
+			}
+			while (first != null) {
+				Request next = first.next;
+				first.next = null;
+				serve(first);
+				first = next;
+			}
+		}
+		// Don't strand requests made while shutting down.
+		drain();
+	}
+
+	/**
+	 * Serve the requests waiting, on the calling thread. Each is taken by one caller.
+	 */
+	private void drain() {
+		for (Request r = m_requests.getAndSet(null); r != null;) {
+			Request next = r.next;
+			r.next = null;
+			serve(r);
+			r = next;
+		}
+	}
+
+	private void serve(Request r) {
+		ModalCoefficients c;
+		if (r.into == null)
+			c = get(r.data, r.freqScale, r.dampScale, r.contactDamping, r.fps);
+		else {
+			c = find(r.data, r.freqScale, r.dampScale, r.contactDamping, r.fps);
+			if (c == null) {
+				r.into.calculate(r.data, r.freqScale, r.dampScale, quantize(r.contactDamping), r.fps);
+				c = r.into;
+			}
+		}
+		r.result = c;
+		r.busy = false;
+	}
+
+	/**
+	 * Stop the worker. Sets are then calculated when they are asked for. Scenes call this when closed.
+	 */
+	public void shutdown() {
+		m_shutdown = true;
+		Thread worker = m_worker;
+		if (worker != null)
+			LockSupport.unpark(worker);
+	}
+
+	static float quantize(float contactDamping) {
+		return Math.round(contactDamping / CONTACT_DAMPING_STEP) * CONTACT_DAMPING_STEP;
+	}
+
+	/**
+	 * A resonator's request for a set from the worker, made once and reused. The resonator sets the fields
+	 * and calls calculateLater(), and while the request is busy only the worker reads them. The worker
+	 * publishes the set through a volatile field, which the resonator takes at the start of a block, so
+	 * neither waits for the other.
+	 */
+	static final class Request {
+		ModalData data;
+		float freqScale;
+		float dampScale;
+		float contactDamping;
+		float fps;
+		// A set of the resonator's own to calculate into, unless the set is cached, or null for a shared set.
+		ModalCoefficients into;
+
+		private volatile ModalCoefficients result = null;
+		private volatile boolean busy = false;
+		private Request next = null; // In the worker's requests.
+
+		/**
+		 * True from calculateLater() until the result is published.
+		 */
+		boolean isBusy() {
+			return busy;
+		}
+
+		/**
+		 * Return the set published since the last call, or null.
+		 */
+		ModalCoefficients take() {
+			ModalCoefficients c = result;
+			if (c != null)
+				result = null;
+			return c;
+		}
+	}
+
+	/**
+	 * The number of coefficient sets cached.
+	 */
+	public int size() {
+		return m_sets.size();
+	}
+
+	public void clear() {
+		m_sets.clear();
+		m_order.clear();
+	}
+
+	// Mutable so that probe keys can be reused; keys in the cache aren't changed.
+	private static final class Key {
+		private ModalData data;
+		private int version; // Sets made before the data was last read don't match.
+		private float freqScale;
+		private float dampScale;
+		private float contactDamping;
+		private float fps;
+
+		void set(ModalData data, float freqScale, float dampScale, float contactDamping, float fps) {
+			this.data = data;
+			this.version = data.getVersion();
+			this.freqScale = freqScale;
+			this.dampScale = dampScale;
+			this.contactDamping = contactDamping;
+			this.fps = fps;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof Key))
+				return false;
+			Key k = (Key) o;
+			return data == k.data && version == k.version
+					&& Float.floatToIntBits(freqScale) == Float.floatToIntBits(k.freqScale)
+					&& Float.floatToIntBits(dampScale) == Float.floatToIntBits(k.dampScale)
+					&& Float.floatToIntBits(contactDamping) == Float.floatToIntBits(k.contactDamping)
+					&& Float.floatToIntBits(fps) == Float.floatToIntBits(k.fps);
+		}
+
+		public int hashCode() {
+			int h = System.identityHashCode(data);
+			h = 31 * h + version;
+			h = 31 * h + Float.floatToIntBits(freqScale);
+			h = 31 * h + Float.floatToIntBits(dampScale);
+			h = 31 * h + Float.floatToIntBits(contactDamping);
+			h = 31 * h + Float.floatToIntBits(fps);
+			return h;
+		}
+	}
+}
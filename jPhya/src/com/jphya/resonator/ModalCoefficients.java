@@ -0,0 +1,137 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.resonator;
+
+/**
+ * Resonator filter coefficients for all the modes of a ModalData, in its weight order, at one set of scale
+ * factors and sample rate. The sets are made by the scene's ModalCoefficientCache and shared by all the
+ * resonators with the same data and scales, so they are never changed once made.
+ * A modulated resonator has two sets of its own, recalculated in turn as its scales move, by the cache's
+ * worker when rendering in real time.
+ * The amplitude coefficients don't include the resonator's aux amplitude scale, which it applies itself.
+ * @author Sam
+ *
+ */
+final class ModalCoefficients {
+
+	final float[] cplus;
+	final float[] cminus;
+	final float[] aa;
+
+	// Used in finding the envelope level of the modes.
+	final float[] l0;
+	final float[] l1;
+
+	// audibleBefore[m] is the number of modes before mode m that are below the Nyquist frequency.
+	final int[] audibleBefore;
+
+	// The data and scales the set was calculated for.
+	ModalData data;
+	float freqScale;
+	float dampScale;
+	float contactDamping;
+
+	ModalCoefficients(ModalData data, float freqScale, float dampScale, float contactDamping, float fps) {
+		this(data.getM_nModes());
+		calculate(data, freqScale, dampScale, contactDamping, fps);
+	}
+
+	ModalCoefficients(int nModes) {
+		cplus = new float[nModes];
+		cminus = new float[nModes];
+		aa = new float[nModes];
+		l0 = new float[nModes];
+		l1 = new float[nModes];
+		audibleBefore = new int[nModes + 1];
+	}
+
+	/**
+	 * Whether mode m is at or above the Nyquist frequency, where it would alias. Such modes are never run.
+	 */
+	boolean aliases(int m) {
+		return audibleBefore[m + 1] == audibleBefore[m];
+	}
+
+	/**
+	 * The number of the first n modes that are below the Nyquist frequency.
+	 */
+	int audible(int n) {
+		return audibleBefore[n];
+	}
+
+	/**
+	 * Calculate the coefficients. Only a set belonging to one resonator is recalculated once made.
+	 */
+	void calculate(ModalData data, float freqScale, float dampScale, float contactDamping, float fps) {
+		this.data = data;
+		this.freqScale = freqScale;
+		this.dampScale = dampScale;
+		this.contactDamping = contactDamping;
+		int n = cplus.length;
+
+		float t1;
+		float t2;
+		float t3;
+
+		float creal;
+		float cimg;
+		float ds = contactDamping * dampScale / fps;
+		float fs = freqScale / fps;
+
+		float[] d = data.m_damp; // Resolve indirection before loop.
+		float[] f = data.m_freq;
+		float[] a = data.m_amp;
+		int[] order = data.getWeightOrder(); // Mode m is the data's mode order[m].
+
+		float fTemp;
+		int[] audible = audibleBefore;
+
+		for (int m = 0; m < n; m++) {
+			int k = order[m];
+			fTemp = f[k] * fs;
+			if (fTemp >= .5f) {
+				aa[m] = 0.0f; // Remove mode if it would frequency-alias.
+				audible[m + 1] = audible[m];
+			} else {
+				audible[m + 1] = audible[m] + 1;
+				t1 = (float) Math.exp(-d[k] * ds);
+				t2 = ModalResonator.TWOPI * fTemp;
+				creal = (float) Math.cos(t2) * t1; // ! Replace with cheaper
+				// approximation?
+				cimg = (float) Math.sin(t2) * t1;
+
+				t3 = (float) Math.sqrt(1f - cimg * cimg);
+				cplus[m] = creal + t3;
+				cminus[m] = creal - t3;
+				aa[m] = a[k] * cimg;
+
+				// Find constants used by isQuiet() to find level of mode[0]
+				l0[m] = 2.0f * (t3 - 1.0f);
+				l1[m] = 1f / cimg / cimg;
+			}
+		}
+	}
+}
@@ -1,440 +1,1248 @@
-/*
-Copyright (C) 2001, Dylan Menzies
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.resonator;
-
-import java.nio.FloatBuffer;
-
-import com.jphya.distance.DistanceModel;
-import com.jphya.scene.Scene;
-import com.jphya.signal.Block;
-
-public class ModalResonator extends Resonator {
-
-	public static final float TWOPI = 6.2853f;
-
-	private static final float DENORMALISATION_EPSILON = 1e-20f;
-
-	private ModalData m_data;
-	private int m_nActiveModes = 0;
-
-	// Runtime coefficients calculated from ModalData.
-
-	/**
-	 * Array of resonator coefficients for different modes.
-	 */
-	private float[] m_cplus; // 
-	
-	/**
-	 * Array of resonator coefficients for different modes.
-	 */
-	private float[] m_cminus;
-	
-	/**
-	 * Array of resonator coefficients for different modes.
-	 */
-	private float[] m_aa;
-	
-	/**
-	 *  End-of-last-block resonator state-variables for each mode,
-	 */
-	private float[] m_u; //
-	
-	/**
-	 * Stored for use at the start of the next block.
-	 */
-	private float[] m_v; // s
-	
-	/**
-	 * coefficients used in finding the envelope level of the modes.
-	 */
-	private float[] m_l0; 
-	
-	/**
-	 * coefficients used in finding the envelope level of the modes.
-	 */
-	private float[] m_l1;
-	
-	/**
-	 *  Threshold for being quiet.
-	 *  Default: 1
-	 */
-	private float m_quietLevelSqr = 1f; //
-	// float m_dcBias; // Used to reduce limit cycles and denormalization.
-
-	/**
-	 *  Scale factor for frequency (act in addition to the scale factors in the modal data.
-	 */
-	private float m_auxFreqScale;
-	
-	/**
-	 *  Scale factor for dampening (act in addition to the scale factors in the modal data.
-	 */
-	private float m_auxDampScale;
-	
-	/**
-	 *  Scale factor for amplitude/volume (act in addition to the scale factors in the modal data.
-	 */
-	private float m_auxAmpScale;
-
-	private boolean m_recalcAll;
-
-	public int setnActiveModes(int n) {
-		// assert(n <= m_data.getnModes());
-		if (m_data == null || n > m_data.getM_nModes())
-			return -1;
-		m_nActiveModes = n;
-		return 0;
-	};
-
-	public void setAuxAmpScale(float s) {
-		if (m_auxAmpScale != s) {
-			m_auxAmpScale = s;
-			m_recalcAll = true;
-		}
-	
-	};
-
-	public void setAuxFreqScale(float s) {
-		if (m_auxFreqScale != s) {
-			m_auxFreqScale = s;
-			m_recalcAll = true;
-		}
-
-	};
-
-	public void setAuxDampScale(float s) {
-		if (m_auxDampScale != s) {
-			m_auxDampScale = s;
-			m_recalcAll = true;
-		}
-	
-	};
-
-	public int setData(ModalData d) {
-		if (d != null) // Otherwise initialize default mode
-		{
-			m_data = d;
-			m_nActiveModes = m_data.getM_nModes();
-		}
-
-		zero();
-		m_recalcAll = false;
-
-		return (0);
-	}
-
-	public void zero() {
-		int i;
-
-		calcCoefficients();
-
-		for (i = 0; i < Modal.nMaxModes; i++) // Set initial states, consistent
-		// with DC bias.
-		{
-			m_u[i] = 0; // m_dcBias / (1-m_cminus[i] + 1/(1-m_cplus[i]));
-			m_v[i] = 0; // m_u[i]/(1-m_cplus[i]);
-		}
-
-	
-	}
-
-	public ModalResonator(Scene scene) {
-		super(scene);
-		m_nActiveModes = 0;
-
-		// ! Mallocs should be managed dynamically in file load etc.
-		m_cplus = new float[Modal.nMaxModes]; //paFloatCalloc(paModal::nMaxModes
-		// );
-		m_cminus = new float[Modal.nMaxModes]; //paFloatCalloc(paModal::nMaxModes
-		// );
-
-		m_aa = new float[Modal.nMaxModes];// paFloatCalloc(paModal::nMaxModes);
-
-		m_u = new float[Modal.nMaxModes];// paFloatCalloc(paModal::nMaxModes);
-		m_v = new float[Modal.nMaxModes];// paFloatCalloc(paModal::nMaxModes);
-
-		m_l0 = new float[Modal.nMaxModes];// paFloatCalloc(paModal::nMaxModes);
-		m_l1 = new float[Modal.nMaxModes];// paFloatCalloc(paModal::nMaxModes);
-
-		m_data = null;
-
-		m_auxFreqScale = 1.0f;
-		m_auxAmpScale = 1.0f;
-		m_auxDampScale = 1.0f;
-
-		contactDampingOld = 1.0f;
-		resetContactDamping();
-
-		setQuietLevel(1.0f);
-
-		m_recalcAll = true;
-
-		// m_dcBias = 0.0f;
-	}
-
-	
-
-	/**
-	 *  Calculate resonator filter coefficients.
-	
-	
-	 This is done once when a resonator is first initialized,
-	 and then whenever changes are made to the modes,
-	 eg when auxScaleFactors are changed.
-	
-	 Frequent Frequency Update For Deformable Body Effects and Similar:
-	
-	 The calculations here look fairly heavy, but small fequency jumps aren't
-	 very noticeable, so we can get away with update rates of as low as 30Hz
-	 for typical frequency
-	 variations. At this rate the relative cost of calculating coefficients
-	 is low compared to the resonator calculation.
-	 Frequent Amplitude Update For Continuous Contact:
-	
-	 Approximating continuous variations of coupling amplitudes with discrete
-	 jumps is
-	 much more noticeable than for frequency variation, but luckily the cost
-	 of updating
-	 the aa parameters can be much lower if simple interpolation is applied
-	 between updates.
-	 Continuous amplitude coupling variation corresponds to moving a contact
-	 point over
-	 a surface. However we can just set the coupling on initial contact and
-	 not bother to
-	 vary it, without noticing much difference - Variation of coupling with
-	 impacts is
-	 more important to model. For this reason coupling interpolation is not
-	 implemented,
-	 although it could be added transparently as a user option for each input.
-	 *  
-	 */
-	private int calcCoefficients() {
-		float t1;
-		float t2;
-		float t3;
-
-		float creal;
-		float cimg;
-		float ds = contactDamping * m_auxDampScale / scene.getFPS();
-		float fs = m_auxFreqScale / scene.getFPS();
-		assert (m_data != null);// ("Modal data undefined in resonator.",
-		// assert( !(m_data!=null && (!m_data.m_amp || !m_data.m_damp ||
-		// !m_data.
-		// m_freq))));//("Modal data defined in resonator, but not valid",
-
-		float[] d = m_data.m_damp; // Resolve indirection before loop.
-		float[] f = m_data.m_freq;
-		float[] a = m_data.m_amp;
-
-		float fTemp;
-
-		int m;
-
-		for (m = 0; m < m_nActiveModes; m++) {
-			fTemp = (float) f[m] * fs;
-			if (fTemp > .5f)
-				m_aa[m] = 0.0f; // Remove mode if it would frequency-alias.
-			else {
-				t1 = (float) Math.exp(-d[m] * ds);
-				t2 = (float) TWOPI * fTemp;
-				creal = (float) Math.cos(t2) * t1; // ! Replace with cheaper
-				// approximation?
-				cimg = (float) Math.sin(t2) * t1;
-
-				t3 = (float) Math.sqrt(1f - cimg * cimg);
-				m_cplus[m] = creal + t3;
-				m_cminus[m] = creal - t3;
-				m_aa[m] = a[m] * cimg * m_auxAmpScale;
-
-				// Find constants used by isQuiet() to find level of mode[0]
-				m_l0[m] = (float) (2.0f * (t3 - (float) 1.0f));
-				// m_l0[m] = (float)(2.0* (sqrt(1 - cimg*cimg) - (float)1.0));
-				m_l1[m] = 1f / cimg / cimg;
-
-			}
-		}
-
-		return 0;
-	}
-
-	public void processControlInput() {
-		// ContactDamping accumulation check.
-		if (contactDamping > maxContactDamping)
-			contactDamping = maxContactDamping;
-		if (contactDamping != contactDampingOld) {
-			contactDampingOld = contactDamping;
-			m_recalcAll = true;
-		}
-
-		if (m_recalcAll) {
-			calcCoefficients();
-			m_recalcAll = false;
-			return;
-		}
-
-		// Amp coupling update for separate inputs goes here..
-	}
-
-	/**
-	 * Determines at what rms envelope level
-	 	a resonator will be
-		faded out when no longer in contact, to save cpu.
-	 	Make bigger to save more cpu, but possibly truncate decays
-		notceably.
-	 */
-	public void setQuietLevel(float l) {
-		// l *= 0.1f; // Makes up for inaccuracy in level detector.
-		m_quietLevelSqr = l * l;
-	};
-
-	public Block tick() {
-
-		m_output.zero(); // Could be made faster by overwriting output on mode
-		// 0,
-		// but this won't make much difference because num modes not small.
-		tickAdd();
-		
-		DistanceModel dist = super.body.getDistanceModel();
-		dist.applyDistanceModel(body.getPreviousDistance(), body.getCurrentDistance(), m_output);
-		return m_output;
-	}
-
-	public Block tickAdd() {
-		// Modal resonator, based on 2nd order variant optimized for speed by
-		// Kees van den Doel.
-
-		int nFrames = scene.getNFrames();
-		int mode;
-		int i;
-		float uPrev;
-		float u = 0f;
-		float v;
-		float cp, cm, aaa;
-
-		assert (getM_input() != null);
-		assert (m_output != null);
-		assert (getM_input() != m_output);// (
-		// "res.tickAdd() cannot use an input and output block the same."
-		// ,
-
-		// float[] out = m_output.getStart(); // Output samples. 'output' is
-		// const. 'start' isn't.
-		// float[] in = getM_input().getStart();
-		FloatBuffer out = m_output.getStart();
-		FloatBuffer in = getM_input().getStart();
-
-		processControlInput(); // Thread-safe updating of internal state (incl
-		// coefficients)
-		// according to control input received since last processControlInput().
-
-		for (mode = 0; mode < m_nActiveModes; mode++) {
-
-			uPrev = m_u[mode]; // Load resonator state for this mode from end of
-			// previous block.
-			v = m_v[mode];
-			cp = m_cplus[mode];
-			cm = m_cminus[mode];
-
-			// dcOffset = m_dcBias / (1-cm + 1/(1-cp)); // Experimental
-			// anti-limit cycle offset
-
-			// Run the resonator for this mode for one block.
-
-			// The impulse response of each mode has the form sin(wt)exp(lambda
-			// t), t>0
-			// This is the physical displacement generated by a force impulse.
-			// Note the standard 2-pole resonator is slightly different having
-			// the response
-			// cos(wt)exp(lambda t)
-
-			// There are limit cycles, but they are made small
-			// by scaling the input up, and the output down:
-
-			aaa = m_aa[mode];
-
-			for (i = 0; i < nFrames; i++) {
-				u = cm * uPrev - v + aaa * in.get(i)
-						+ (float) DENORMALISATION_EPSILON; // Prevents
-				// denormalization.
-				v = cp * v + uPrev;
-				uPrev = u;
-				out.put(i, out.get(i) + v); // out[i] += v;
-			}
-
-			m_u[mode] = u;
-			m_v[mode] = v;
-		}
-
-		return m_output; // paBlock pointer
-
-	} // tickAdd()
-
-	public float estimateVolume()
-	{
-		float u;
-		float v;
-		int mode;
-		float lsqr = 0;
-
-		for (mode = 0; mode < m_nActiveModes; mode++) {
-
-			// Use state variables to find mode levels and estimated total level
-			// (squared)
-			// (total level is sqrt energy. energy = sum of mode energies = sum
-			// of mode levels squared)
-
-			u = m_u[mode];
-			v = m_v[mode];
-
-			lsqr += m_l1[mode] * ((u + v) * (u + v) + m_l0[mode] * u * v);
-		}
-		return lsqr;
-	}
-	
-	public boolean isQuiet() {
-		if (makeQuiet) {
-			makeQuiet = false;
-			return true;
-		}
-
-		float lsqr = estimateVolume();
-
-		// ! Could maybe quieten modes seperately if they are barely excited.
-		// ! Need to distinguish between impact and contact cases though,
-		// because
-		// ! impacts can be faded from a fairly high level, whereas contacts
-		// will
-		// ! sound poor if repeatedly faded and rewoken: Use 'inContact' flag in
-		// resonators.
-
-		return (lsqr < m_quietLevelSqr);
-	}
-
-	public int getTimeCost() {
-		// For now a rough estimate of time cost, on an arbitrary scale.
-		return m_nActiveModes * 10;
-	}
-}
+/*
+Copyright (C) 2001, Dylan Menzies
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.resonator;
+
+import java.nio.FloatBuffer;
+
+import com.jphya.distance.DistanceModel;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+public class ModalResonator extends Resonator {
+
+	public static final float TWOPI = 6.2853f;
+
+	static final float DENORMALISATION_EPSILON = 1e-20f;
+
+	private ModalData m_data;
+	int m_nActiveModes = 0;
+
+	/**
+	 * The most modes that may be active, from setData() or setnActiveModes(). Level of detail chooses the
+	 * active modes up to this.
+	 */
+	private int m_nModeLimit = 0;
+
+	/**
+	 * Modes at the end of the active ones that are being faded out over this block, before they are dropped.
+	 */
+	private int m_nFading = 0;
+
+	// Relative weights of the modes, which are run in the data's order of perceptual weight.
+	private float[] m_relWeights = null;
+
+	/**
+	 * Runtime coefficients calculated from ModalData, for all its modes. Shared with the other resonators
+	 * using the same data and scales, so never changed here.
+	 */
+	ModalCoefficients m_coeffs = null;
+
+	// Asks the cache's worker for coefficients for new scales. They are swapped in at the start of the
+	// first block after they are published, and m_coeffs is played until then.
+	private final ModalCoefficientCache.Request m_request = new ModalCoefficientCache.Request();
+	
+	/**
+	 *  End-of-last-block resonator state-variables for each mode, from m_stateBase.
+	 *  These are the resonator's own arrays, or the scene's ModalBank while it is in the bank.
+	 */
+	float[] m_u; //
+	
+	/**
+	 * Stored for use at the start of the next block.
+	 */
+	float[] m_v; // s
+	
+	private int m_stateBase = 0;
+	private float[] m_ownU;
+	private float[] m_ownV;
+	
+	// Set while the resonator is in its scene's ModalBank.
+	ModalBank m_bank = null;
+	int m_bankIndex = -1;
+	// Set when the bank has ticked the resonator, until its output is picked up.
+	boolean m_rendered = false;
+	float[] m_bankOutput = null;
+	// Set when the bank has processed the control input of a resonator that ticks itself, until it does.
+	boolean m_controlled = false;
+	
+	// Samples of direct blocks, copied in and out for tickAdd().
+	private float[] m_outScratch = null;
+	private float[] m_inScratch = null;
+	
+	/**
+	 *  Threshold for being quiet.
+	 *  Default: 1
+	 */
+	private float m_quietLevelSqr = 1f; //
+	// float m_dcBias; // Used to reduce limit cycles and denormalization.
+
+	/**
+	 *  A good threshold for setModeQuietLevel(), with the default quiet level of 1.
+	 */
+	public static final float MODE_QUIET_FRACTION = 0.1f;
+
+	/**
+	 *  A good mask level for setModeMaskLevel(): -60dB.
+	 */
+	public static final float MODE_MASK_LEVEL = 0.001f;
+
+	/**
+	 *  Threshold for a single mode being quiet, on top of the scene's.
+	 *  Default: 0 (off)
+	 */
+	private float m_modeQuietLevelSqr = 0f; //
+
+	/**
+	 *  A mode is also quiet when its level is below this fraction of the resonator's total level,
+	 *  where it is masked by the louder modes.
+	 *  Default: 0 (off)
+	 */
+	private float m_modeMaskLevelSqr = 0f; //
+	private float[] m_modeLevels; // Level squared of each live mode, found by cull().
+
+	/**
+	 * The modes being run, in increasing order. The others have decayed below the mode quiet level,
+	 * and are left out, with their state zeroed, until the next input wakes them. Modes at or above the
+	 * Nyquist frequency are always left out.
+	 */
+	int[] m_live;
+	int m_nLive = 0;
+
+	/**
+	 *  Scale factor for frequency (act in addition to the scale factors in the modal data.
+	 */
+	private float m_auxFreqScale;
+	
+	/**
+	 *  Scale factor for dampening (act in addition to the scale factors in the modal data.
+	 */
+	private float m_auxDampScale;
+	
+	/**
+	 *  Scale factor for amplitude/volume (act in addition to the scale factors in the modal data.
+	 *  Applied to the shared coefficients as they are used, so changing it needs no recalculation.
+	 */
+	float m_auxAmpScale;
+
+	private boolean m_recalcAll;
+	private boolean m_reloadAmp; // The bank's copy of the amplitude coefficients needs rescaling.
+
+	/**
+	 * Set by setModulated(). While modulated, the coefficients move to new scales by linear interpolation
+	 * across a block, instead of jumping at its start.
+	 */
+	private volatile boolean m_modulated = false;
+	// Set while the audio thread is modulating, from the start of a block.
+	boolean m_modRunning = false;
+	// The resonator's own coefficients, recalculated in turn as targets that aren't cached.
+	private ModalCoefficients[] m_modSets = null;
+	// The amplitude scale reached at the end of the last block.
+	private float m_modAmp;
+
+	// Passed to the audio thread to bring the resonator's bank membership up to date.
+	private final Runnable m_updateBank = new Runnable() {
+		public void run() {
+			updateBank();
+		}
+	};
+
+	/**
+	 * Run only the n most audible modes, by amplitude times damping time.
+	 * Called on another thread once the scene is running, the change is made by the audio thread at the
+	 * start of the next tick.
+	 */
+	public int setnActiveModes(final int n) {
+		// assert(n <= m_data.getnModes());
+		if (m_data == null || n > m_data.getM_nModes())
+			return -1;
+		if (mustDefer()) {
+			scene.invokeLater(new Runnable() {
+				public void run() {
+					setnActiveModes(n);
+				}
+			});
+			return 0;
+		}
+		m_nModeLimit = n;
+		resize(n);
+		return 0;
+	};
+
+	/**
+	 * True if the audio thread may be ticking the resonator, so that changes to its modes must be passed to it.
+	 */
+	private boolean mustDefer() {
+		return !scene.isRenderThread() && scene.hasRenderThread();
+	}
+
+	/**
+	 * Join or leave the scene's ModalBank, to match whether the resonator is active and has modes.
+	 * The bank belongs to the audio thread, so on any other thread this is passed to it, and happens
+	 * at the start of the next tick.
+	 */
+	private void updateBank() {
+		if (!scene.isRenderThread()) {
+			scene.invokeLater(m_updateBank);
+			return;
+		}
+		boolean member = isActive() && m_nActiveModes > 0;
+		if (member && m_bank == null)
+			scene.getModalBank().add(this);
+		else if (!member && m_bank != null)
+			m_bank.remove(this);
+	}
+
+	/**
+	 * Change the number of active modes. Modes that carry on keep their state, and the others start from rest.
+	 * Only called on the audio thread, or before the scene is running.
+	 */
+	private void resize(int n) {
+		ModalBank bank = m_bank;
+		if (bank != null)
+			bank.remove(this); // Rejoin with the new number of modes.
+
+		int keep = Math.min(n, m_nActiveModes - m_nFading);
+		for (int m = keep; m < m_nActiveModes; m++) {
+			m_u[m_stateBase + m] = 0;
+			m_v[m_stateBase + m] = 0;
+		}
+		int nLive = 0;
+		for (int j = 0; j < m_nLive; j++) {
+			if (m_live[j] < keep)
+				m_live[nLive++] = m_live[j];
+		}
+		for (int m = keep; m < n; m++) {
+			if (!aliases(m))
+				m_live[nLive++] = m;
+		}
+		m_nLive = nLive;
+		m_nActiveModes = n;
+		m_nFading = 0;
+
+		if (bank != null)
+			bank.add(this);
+	}
+
+	/**
+	 * Level of detail. The modes are left out, least audible first, while their estimated share of the
+	 * resonator's level at the listener is below detailLevel. levelSqr is the squared level at the listener.
+	 * A detailLevel of 0 runs all the modes allowed by setnActiveModes().
+	 * <p>
+	 * Modes are added straight away, from rest. They are only dropped once they are 6dB below detailLevel,
+	 * so that the number of modes doesn't flicker, and are faded out over one block.
+	 */
+	public void chooseDetail(float levelSqr, float detailLevel) {
+		if (m_nFading > 0)
+			resize(m_nActiveModes - m_nFading); // Faded out last block.
+		int limit = m_nModeLimit;
+		int n = m_nActiveModes;
+		if (m_data == null || limit == 0)
+			return;
+		if (detailLevel <= 0) {
+			if (n < limit)
+				resize(limit);
+			return;
+		}
+
+		float level = (float) Math.sqrt(levelSqr);
+		float[] rel = m_relWeights;
+		int nUp = 1;
+		while (nUp < limit && level * rel[nUp] >= detailLevel)
+			nUp++;
+		if (nUp > n) {
+			resize(nUp);
+			return;
+		}
+
+		int nDown = nUp;
+		while (nDown < limit && level * rel[nDown] >= 0.5f * detailLevel)
+			nDown++;
+		if (nDown < n) {
+			m_nFading = n - nDown;
+			int nLive = 0;
+			for (int j = 0; j < m_nLive; j++) {
+				if (m_live[j] < nDown)
+					m_live[nLive++] = m_live[j];
+			}
+			m_nLive = nLive;
+		}
+	}
+
+	/**
+	 * The most modes that may be active, set by setnActiveModes(). Level of detail may run fewer.
+	 */
+	public int getnModeLimit() {
+		return m_nModeLimit;
+	}
+
+	public int getnActiveModes() {
+		return m_nActiveModes;
+	}
+
+	public void setAuxAmpScale(float s) {
+		if (m_auxAmpScale != s) {
+			m_auxAmpScale = s;
+			m_reloadAmp = true;
+		}
+	
+	};
+
+	public void setAuxFreqScale(float s) {
+		if (m_auxFreqScale != s) {
+			m_auxFreqScale = s;
+			m_recalcAll = true;
+		}
+
+	};
+
+	public void setAuxDampScale(float s) {
+		if (m_auxDampScale != s) {
+			m_auxDampScale = s;
+			m_recalcAll = true;
+		}
+	
+	};
+
+	/**
+	 * Modulation, for pitch and damping that vary continuously, such as creaking or deforming bodies.
+	 * While modulated, changes to the aux scales and contact damping are reached at the end of the next block,
+	 * with the coefficients interpolated linearly across it, so that the aux scales can be set as often as
+	 * every block without steps. The coefficients at the targets are calculated at most once per block, and
+	 * not at all when only the amplitude scale changes.
+	 */
+	public void setModulated(boolean modulated) {
+		m_modulated = modulated;
+	}
+
+	public boolean isModulated() {
+		return m_modulated;
+	}
+
+	/**
+	 * Set the targets of a modulated resonator, which it reaches over the next block.
+	 */
+	public void modulate(float freqScale, float dampScale, float ampScale) {
+		m_modulated = true;
+		setAuxFreqScale(freqScale);
+		setAuxDampScale(dampScale);
+		setAuxAmpScale(ampScale);
+	}
+
+	/**
+	 * Called on another thread once the scene is running, the change is made by the audio thread at the
+	 * start of the next tick.
+	 */
+	public int setData(final ModalData d) {
+		// The new coefficients are found here, on the caller's thread, so that the audio thread doesn't
+		// calculate them when it zeroes the resonator.
+		final ModalCoefficients prepared = d == null ? null : scene.getModalCoefficientCache().get(d,
+				m_auxFreqScale, m_auxDampScale, contactDamping, scene.getFPS());
+		if (mustDefer()) {
+			scene.invokeLater(new Runnable() {
+				public void run() {
+					setData(d, prepared);
+				}
+			});
+			return 0;
+		}
+		return setData(d, prepared);
+	}
+
+	private int setData(ModalData d, ModalCoefficients prepared) {
+		ModalBank bank = m_bank;
+		if (bank != null)
+			bank.remove(this);
+		if (d != null) // Otherwise initialize default mode
+		{
+			m_data = d;
+			m_coeffs = prepared;
+			m_request.take(); // Any set from the worker is for the old data.
+			m_nActiveModes = m_data.getM_nModes();
+			m_nModeLimit = m_nActiveModes;
+			m_nFading = 0;
+			m_relWeights = d.getRelativeWeights();
+			if (m_ownU.length != m_nActiveModes) {
+				// State for just the data's modes.
+				m_ownU = new float[m_nActiveModes];
+				m_ownV = new float[m_nActiveModes];
+				m_u = m_ownU;
+				m_v = m_ownV;
+				m_live = new int[m_nActiveModes];
+				m_modeLevels = new float[m_nActiveModes];
+			}
+		}
+
+		m_recalcAll = false;
+		zero();
+		if (bank != null)
+			bank.add(this);
+
+		return (0);
+	}
+
+	public void zero() {
+		int i;
+
+		if (mustDefer()) {
+			scene.invokeLater(m_zero);
+			return;
+		}
+
+		if (m_nFading > 0)
+			resize(m_nActiveModes - m_nFading);
+		calcCoefficients();
+
+		int n = m_bank != null ? m_nActiveModes : m_u.length;
+		for (i = 0; i < n; i++) // Set initial states, consistent
+		// with DC bias.
+		{
+			m_u[m_stateBase + i] = 0; // m_dcBias / (1-m_cminus[i] + 1/(1-m_cplus[i]));
+			m_v[m_stateBase + i] = 0; // m_u[i]/(1-m_cplus[i]);
+		}
+		resetLive();
+
+	
+	}
+
+	public ModalResonator(Scene scene) {
+		super(scene);
+		m_nActiveModes = 0;
+
+		// The state arrays are sized for the data by setData().
+		m_ownU = new float[0];
+		m_ownV = new float[0];
+		m_u = m_ownU;
+		m_v = m_ownV;
+
+		m_live = new int[0];
+		m_modeLevels = new float[0];
+
+		m_data = null;
+
+		m_auxFreqScale = 1.0f;
+		m_auxAmpScale = 1.0f;
+		m_auxDampScale = 1.0f;
+
+		contactDampingOld = 1.0f;
+		resetContactDamping();
+
+		setQuietLevel(1.0f);
+
+		m_recalcAll = true;
+
+		// m_dcBias = 0.0f;
+	}
+
+	// Passed to the audio thread by zero() on other threads.
+	private final Runnable m_zero = new Runnable() {
+		public void run() {
+			zero();
+		}
+	};
+
+	/**
+	 * Joins the scene's ModalBank, which ticks the active modal resonators together.
+	 */
+	public void activate() {
+		super.activate();
+		updateBank();
+	}
+
+	public int deactivate() {
+		int r = super.deactivate();
+		updateBank();
+		return r;
+	}
+
+	/**
+	 * Point the resonator at the arrays holding its state, with its first mode at base.
+	 */
+	void bindState(float[] u, float[] v, int base) {
+		m_u = u;
+		m_v = v;
+		m_stateBase = base;
+	}
+
+	float[] getOwnU() {
+		return m_ownU;
+	}
+
+	float[] getOwnV() {
+		return m_ownV;
+	}
+
+	
+
+	/**
+	 *  Calculate resonator filter coefficients.
+	
+	
+	 This is done once when a resonator is first initialized,
+	 and then whenever changes are made to the modes,
+	 eg when auxScaleFactors are changed.
+	
+	 Frequent Frequency Update For Deformable Body Effects and Similar:
+	
+	 The calculations here look fairly heavy, but small fequency jumps aren't
+	 very noticeable, so we can get away with update rates of as low as 30Hz
+	 for typical frequency
+	 variations. At this rate the relative cost of calculating coefficients
+	 is low compared to the resonator calculation.
+	 Frequent Amplitude Update For Continuous Contact:
+	
+	 Approximating continuous variations of coupling amplitudes with discrete
+	 jumps is
+	 much more noticeable than for frequency variation, but luckily the cost
+	 of updating
+	 the aa parameters can be much lower if simple interpolation is applied
+	 between updates.
+	 Continuous amplitude coupling variation corresponds to moving a contact
+	 point over
+	 a surface. However we can just set the coupling on initial contact and
+	 not bother to
+	 vary it, without noticing much difference - Variation of coupling with
+	 impacts is
+	 more important to model. Coupling is interpolated across the block,
+	 along with frequency and damping, for resonators set to modulation
+	 with setModulated().
+	 *  
+	 */
+	private int calcCoefficients() {
+		assert (m_data != null);// ("Modal data undefined in resonator.",
+
+		// Resonators with the same data and scales share their coefficients, so they are usually cached.
+		m_modRunning = false; // Modulation starts again from these.
+		// Offline rendering waits for the coefficients, so that it is repeatable. So does a resonator with
+		// none yet, but setData() has usually found them already.
+		if (scene.isRealtime() && m_coeffs != null)
+			calcCoefficientsLater();
+		else
+			install(scene.getModalCoefficientCache().get(m_data, m_auxFreqScale, m_auxDampScale, contactDamping,
+					scene.getFPS()));
+		return 0;
+	}
+
+	/**
+	 * Find the coefficients for changed scales without holding up the block. If they aren't cached they are
+	 * calculated on the cache's worker, and the current coefficients are played until they are ready.
+	 */
+	private void calcCoefficientsLater() {
+		ModalCoefficientCache cache = scene.getModalCoefficientCache();
+		float fps = scene.getFPS();
+		ModalCoefficients c = cache.find(m_data, m_auxFreqScale, m_auxDampScale, contactDamping, fps);
+		if (c != null) {
+			install(c);
+			return;
+		}
+		ModalCoefficientCache.Request r = m_request;
+		if (r.isBusy()) {
+			m_recalcAll = true; // Ask again once the worker has finished the last request.
+			return;
+		}
+		r.data = m_data;
+		r.into = null;
+		r.freqScale = m_auxFreqScale;
+		r.dampScale = m_auxDampScale;
+		r.contactDamping = contactDamping;
+		r.fps = fps;
+		cache.calculateLater(r);
+	}
+
+	private void install(ModalCoefficients c) {
+		ModalCoefficients old = m_coeffs;
+		m_coeffs = c;
+		m_reloadAmp = false;
+		if (m_bank != null)
+			m_bank.load(this);
+		if (c != old)
+			liveBelowNyquist(old);
+	}
+
+	/**
+	 * Whether the mode is at or above the Nyquist frequency with the current coefficients, so is never run.
+	 */
+	private boolean aliases(int mode) {
+		return m_coeffs != null && m_coeffs.aliases(mode);
+	}
+
+	/**
+	 * Leave out the live modes that alias with the current coefficients, zeroing their state, and bring back,
+	 * from rest, those that only aliased with the old ones.
+	 */
+	private void liveBelowNyquist(ModalCoefficients old) {
+		ModalCoefficients c = m_coeffs;
+		int n = m_nActiveModes - m_nFading;
+		boolean oldAliased = old != null && old.audible(n) < n;
+		if (c.audible(n) == n && !oldAliased)
+			return;
+
+		int[] live = m_live;
+		int nLive = 0;
+		for (int j = 0; j < m_nLive; j++) {
+			int mode = live[j];
+			if (c.aliases(mode)) {
+				m_u[m_stateBase + mode] = 0;
+				m_v[m_stateBase + mode] = 0;
+			} else {
+				live[nLive++] = mode;
+			}
+		}
+		m_nLive = nLive;
+		if (!oldAliased)
+			return;
+
+		int nBack = 0;
+		for (int m = 0; m < n; m++) {
+			if (old.aliases(m) && !c.aliases(m))
+				nBack++;
+		}
+		// Merged in from the end, so that the list can grow in place.
+		int j = nLive - 1;
+		int k = nLive + nBack;
+		for (int m = n - 1; m >= 0 && k > j + 1; m--) {
+			if (j >= 0 && live[j] == m)
+				live[--k] = live[j--];
+			else if (old.aliases(m) && !c.aliases(m))
+				live[--k] = m;
+		}
+		m_nLive = nLive + nBack;
+	}
+
+	public void processControlInput() {
+		// ContactDamping accumulation check.
+		if (contactDamping > maxContactDamping)
+			contactDamping = maxContactDamping;
+
+		if (m_modulated && m_coeffs != null) {
+			// The coefficients are found as the block is ticked, by tickModulated().
+			if (!m_modRunning) {
+				m_modRunning = true;
+				m_modAmp = m_auxAmpScale;
+			}
+			return;
+		}
+		if (m_modRunning) {
+			// Back to the shared coefficients. The bank plays the last targets until they are found.
+			m_modRunning = false;
+			m_recalcAll = true;
+			m_reloadAmp = true;
+		}
+
+		// Swap in coefficients finished by the worker since the last block.
+		ModalCoefficients done = m_request.take();
+		if (done != null && done.data == m_data)
+			install(done);
+		if (contactDamping != contactDampingOld) {
+			contactDampingOld = contactDamping;
+			m_recalcAll = true;
+		}
+
+		if (m_recalcAll) {
+			m_recalcAll = false;
+			calcCoefficients();
+		}
+
+		if (m_reloadAmp) {
+			m_reloadAmp = false;
+			if (m_bank != null)
+				m_bank.load(this);
+		}
+
+		// Amp coupling update for separate inputs goes here..
+	}
+
+	/**
+	 * Determines at what rms envelope level
+	 	a resonator will be
+		faded out when no longer in contact, to save cpu.
+	 	Make bigger to save more cpu, but possibly truncate decays
+		notceably.
+	 * This is the level of the whole resonator. Single modes are only left out by setModeQuietLevel() and
+	 * setModeMaskLevel(), or the scene's settings of the same name.
+	 */
+	public void setQuietLevel(float l) {
+		// l *= 0.1f; // Makes up for inaccuracy in level detector.
+		m_quietLevelSqr = l * l;
+	};
+
+	/**
+	 * Determines at what envelope level a single mode is left out while the resonator rings without input,
+	 * so that fast decaying modes stop costing cpu long before the whole resonator is quiet.
+	 * Leaving out modes changes the output slightly, so this is off (0) by default, which keeps all the
+	 * modes running. MODE_QUIET_FRACTION is a good place to start. Scene.setModeQuietLevel() sets it for
+	 * every resonator in the scene; the higher of the two is used.
+	 */
+	public void setModeQuietLevel(float l) {
+		m_modeQuietLevelSqr = l * l;
+	}
+
+	/**
+	 * Modes more than this fraction below the resonator's total level are left out as well, while it rings
+	 * without input. Off (0) by default; MODE_MASK_LEVEL is a good place to start. As with the quiet level,
+	 * the higher of this and Scene.setModeMaskLevel() is used.
+	 */
+	public void setModeMaskLevel(float fraction) {
+		m_modeMaskLevelSqr = fraction * fraction;
+	}
+
+	/**
+	 * The number of modes being run, which is less than the active modes when some have gone quiet.
+	 */
+	public int getNLiveModes() {
+		return m_nLive;
+	}
+
+	private void resetLive() {
+		int n = m_nActiveModes - m_nFading;
+		int nLive = 0;
+		for (int i = 0; i < n; i++) {
+			if (!aliases(i))
+				m_live[nLive++] = i;
+		}
+		m_nLive = nLive;
+	}
+
+	/**
+	 * Bring back any quiet modes, from rest, because there is input to excite them.
+	 */
+	void wake() {
+		int n = m_nActiveModes - m_nFading;
+		if (m_nLive < (m_coeffs != null ? m_coeffs.audible(n) : n))
+			resetLive();
+	}
+
+	/**
+	 * Leave out the modes that have decayed below the mode quiet level, or below the mask level relative to
+	 * the whole resonator, whichever of the resonator's and the scene's is higher. Their state is zeroed,
+	 * so that they start from rest when woken.
+	 */
+	private void cull() {
+		float sceneQuiet = scene.getModeQuietLevel();
+		float sceneMask = scene.getModeMaskLevel();
+		float quietSqr = Math.max(m_modeQuietLevelSqr, sceneQuiet * sceneQuiet);
+		float maskSqr = Math.max(m_modeMaskLevelSqr, sceneMask * sceneMask);
+		if (quietSqr <= 0 && maskSqr <= 0)
+			return;
+		float[] su = m_u;
+		float[] sv = m_v;
+		int base = m_stateBase;
+		int[] live = m_live;
+		float[] levels = m_modeLevels;
+		float[] l0 = m_coeffs.l0;
+		float[] l1 = m_coeffs.l1;
+		float lsqr = 0;
+		for (int j = 0; j < m_nLive; j++) {
+			int mode = live[j];
+			float u = su[base + mode];
+			float v = sv[base + mode];
+			levels[j] = l1[mode] * ((u + v) * (u + v) + l0[mode] * u * v);
+			lsqr += levels[j];
+		}
+
+		float threshold = Math.max(quietSqr, maskSqr * lsqr);
+		int n = 0;
+		for (int j = 0; j < m_nLive; j++) {
+			int mode = live[j];
+			if (levels[j] < threshold) {
+				su[base + mode] = 0;
+				sv[base + mode] = 0;
+			} else {
+				live[n++] = mode;
+			}
+		}
+		m_nLive = n;
+	}
+
+	public Block tick() {
+
+		m_output.zero(); // Could be made faster by overwriting output on mode
+		// 0,
+		// but this won't make much difference because num modes not small.
+		tickAdd();
+		
+		DistanceModel dist = super.body.getDistanceModel();
+		dist.applyDistanceModel(body.getPreviousDistance(), body.getCurrentDistance(), m_output);
+		return m_output;
+	}
+
+	public Block tickAdd() {
+		int nFrames = scene.getNFrames();
+		int i;
+
+		assert (getM_input() != null);
+		assert (m_output != null);
+		assert (getM_input() != m_output);// (
+		// "res.tickAdd() cannot use an input and output block the same."
+		// ,
+
+		// float[] out = m_output.getStart(); // Output samples. 'output' is
+		// const. 'start' isn't.
+		// float[] in = getM_input().getStart();
+		FloatBuffer out = m_output.getStart();
+		float[] outArray = m_output.getArray();
+		// Most blocks a resonator is just ringing, with no input to add.
+		boolean silent = getM_input().isZero();
+		float[] inArray = silent ? null : getM_input().getArray();
+
+		if (m_rendered) {
+			// Already ticked by the scene's ModalBank.
+			m_rendered = false;
+			float[] sum = m_bankOutput;
+			if (m_nFading > 0)
+				fadeModes(sum, input(inArray, silent), nFrames);
+			if (outArray != null) {
+				for (i = 0; i < nFrames; i++)
+					outArray[i] += sum[i];
+			} else {
+				for (i = 0; i < nFrames; i++)
+					out.put(i, out.get(i) + sum[i]);
+			}
+			if (silent)
+				cull();
+			return m_output;
+		}
+
+		if (m_controlled)
+			m_controlled = false; // The bank has processed it this block.
+		else
+			processControlInput(); // Thread-safe updating of internal state (incl
+		// coefficients)
+		// according to control input received since last processControlInput().
+
+		// The modes are run over arrays. Direct blocks are copied in and out in bulk.
+		float[] o = outArray;
+		if (o == null) {
+			o = m_outScratch = scratch(m_outScratch);
+			m_output.copyTo(o);
+		}
+		float[] x = input(inArray, silent);
+
+		if (!silent)
+			wake();
+		if (m_modRunning)
+			tickModulated(o, x, nFrames);
+		else
+			tickModes(o, x, nFrames);
+		if (m_nFading > 0)
+			fadeModes(o, x, nFrames);
+		if (silent)
+			cull();
+
+		if (outArray == null)
+			m_output.copyFrom(o);
+		return m_output; // paBlock pointer
+
+	} // tickAdd()
+
+	/**
+	 * Run the active modes for one block, adding their output to out. in is null if there is no input.
+	 * <p>
+	 * Four modes at a time are run together, with their state in locals, so that each output sample is
+	 * read and written once for every four modes instead of once for every mode. Each mode's recurrence
+	 * is unchanged, and the modes are still added to each sample in order, so the result is the same as
+	 * running the modes one at a time.
+	 */
+	private void tickModes(float[] out, float[] in, int nFrames) {
+		// Modal resonator, based on 2nd order variant optimized for speed by
+		// Kees van den Doel.
+
+		// The impulse response of each mode has the form sin(wt)exp(lambda
+		// t), t>0
+		// This is the physical displacement generated by a force impulse.
+		// Note the standard 2-pole resonator is slightly different having
+		// the response
+		// cos(wt)exp(lambda t)
+
+		// There are limit cycles, but they are made small
+		// by scaling the input up, and the output down:
+
+		float[] su = m_u;
+		float[] sv = m_v;
+		int base = m_stateBase;
+		final float eps = DENORMALISATION_EPSILON; // Prevents denormalization.
+		int[] live = m_live;
+		int nLive = m_nLive;
+		float[] cplus = m_coeffs.cplus;
+		float[] cminus = m_coeffs.cminus;
+		float[] aa = m_coeffs.aa;
+		float amp = m_auxAmpScale;
+		int j = 0;
+
+		for (; j + 4 <= nLive; j += 4) {
+			int k0 = live[j], k1 = live[j + 1], k2 = live[j + 2], k3 = live[j + 3];
+			float u0 = su[base + k0], u1 = su[base + k1], u2 = su[base + k2], u3 = su[base + k3];
+			float v0 = sv[base + k0], v1 = sv[base + k1], v2 = sv[base + k2], v3 = sv[base + k3];
+			float cp0 = cplus[k0], cp1 = cplus[k1], cp2 = cplus[k2], cp3 = cplus[k3];
+			float cm0 = cminus[k0], cm1 = cminus[k1], cm2 = cminus[k2], cm3 = cminus[k3];
+			float t0, t1, t2, t3;
+
+			if (in == null) {
+				for (int i = 0; i < nFrames; i++) {
+					t0 = cm0 * u0 - v0 + eps;
+					t1 = cm1 * u1 - v1 + eps;
+					t2 = cm2 * u2 - v2 + eps;
+					t3 = cm3 * u3 - v3 + eps;
+					v0 = cp0 * v0 + u0;
+					v1 = cp1 * v1 + u1;
+					v2 = cp2 * v2 + u2;
+					v3 = cp3 * v3 + u3;
+					u0 = t0;
+					u1 = t1;
+					u2 = t2;
+					u3 = t3;
+					out[i] = out[i] + v0 + v1 + v2 + v3;
+				}
+			} else {
+				float aa0 = aa[k0] * amp, aa1 = aa[k1] * amp, aa2 = aa[k2] * amp, aa3 = aa[k3] * amp;
+				for (int i = 0; i < nFrames; i++) {
+					float x = in[i];
+					t0 = cm0 * u0 - v0 + aa0 * x + eps;
+					t1 = cm1 * u1 - v1 + aa1 * x + eps;
+					t2 = cm2 * u2 - v2 + aa2 * x + eps;
+					t3 = cm3 * u3 - v3 + aa3 * x + eps;
+					v0 = cp0 * v0 + u0;
+					v1 = cp1 * v1 + u1;
+					v2 = cp2 * v2 + u2;
+					v3 = cp3 * v3 + u3;
+					u0 = t0;
+					u1 = t1;
+					u2 = t2;
+					u3 = t3;
+					out[i] = out[i] + v0 + v1 + v2 + v3;
+				}
+			}
+
+			su[base + k0] = u0; su[base + k1] = u1; su[base + k2] = u2; su[base + k3] = u3;
+			sv[base + k0] = v0; sv[base + k1] = v1; sv[base + k2] = v2; sv[base + k3] = v3;
+		}
+
+		// The remaining modes one at a time.
+		for (; j < nLive; j++) {
+			int mode = live[j];
+			float u = su[base + mode]; // Load resonator state for this mode from end of
+			// previous block.
+			float v = sv[base + mode];
+			float cp = cplus[mode];
+			float cm = cminus[mode];
+			float aaa = aa[mode] * amp;
+			float t;
+
+			if (in == null) {
+				for (int i = 0; i < nFrames; i++) {
+					t = cm * u - v + eps;
+					v = cp * v + u;
+					u = t;
+					out[i] += v;
+				}
+			} else {
+				for (int i = 0; i < nFrames; i++) {
+					t = cm * u - v + aaa * in[i] + eps;
+					v = cp * v + u;
+					u = t;
+					out[i] += v; // out[i] += v;
+				}
+			}
+
+			su[base + mode] = u;
+			sv[base + mode] = v;
+		}
+	}
+
+	/**
+	 * Find the coefficients to modulate towards over this block: the target the worker has finished since the
+	 * last block, or else the set at the aux scales and contact damping if it is cached. Otherwise the worker
+	 * is asked to calculate that set into one of the resonator's own, and the coefficients hold until it
+	 * arrives. Offline the set is calculated straight away, so that rendering is repeatable.
+	 * The targets aren't cached, so that continuously moving scales don't push out the shared sets.
+	 */
+	private ModalCoefficients modulationTarget(ModalCoefficients from) {
+		ModalCoefficients done = m_request.take();
+		if (done != null && done.data == m_data)
+			return done;
+		if (m_request.isBusy())
+			return from;
+
+		float fs = m_auxFreqScale;
+		float ds = m_auxDampScale;
+		float cd = ModalCoefficientCache.quantize(contactDamping);
+		if (from.freqScale == fs && from.dampScale == ds && from.contactDamping == cd)
+			return from;
+		ModalCoefficientCache cache = scene.getModalCoefficientCache();
+		float fps = scene.getFPS();
+		ModalCoefficients c = cache.find(m_data, fs, ds, cd, fps);
+		if (c != null)
+			return c;
+
+		int n = from.cplus.length;
+		if (m_modSets == null || m_modSets[0].cplus.length != n)
+			m_modSets = new ModalCoefficients[] { new ModalCoefficients(n), new ModalCoefficients(n) };
+		// Whichever of our sets isn't being interpolated from. The other is only in use until this one arrives.
+		ModalCoefficients spare = m_modSets[from == m_modSets[0] ? 1 : 0];
+		if (!scene.isRealtime()) {
+			spare.calculate(m_data, fs, ds, cd, fps);
+			return spare;
+		}
+		ModalCoefficientCache.Request r = m_request;
+		r.data = m_data;
+		r.into = spare;
+		r.freqScale = fs;
+		r.dampScale = ds;
+		r.contactDamping = cd;
+		r.fps = fps;
+		cache.calculateLater(r);
+		return from;
+	}
+
+	/**
+	 * Run the live modes for one block of modulation, adding their output to out. The coefficients move
+	 * linearly from the current ones to the target found by modulationTarget(), and the amplitude scale
+	 * from the last to the aux amplitude scale, reaching them at the end of the block.
+	 */
+	private void tickModulated(float[] out, float[] in, int nFrames) {
+		ModalCoefficients from = m_coeffs;
+		ModalCoefficients to = modulationTarget(from);
+		float ampFrom = m_modAmp;
+		float ampTo = m_auxAmpScale;
+		if (to == from && ampTo == ampFrom) {
+			tickModes(out, in, nFrames);
+			return;
+		}
+
+		float[] su = m_u;
+		float[] sv = m_v;
+		int base = m_stateBase;
+		final float eps = DENORMALISATION_EPSILON;
+		float step = 1f / nFrames;
+		int[] live = m_live;
+		int nLive = m_nLive;
+		int j = 0;
+
+		// Four modes at a time, as in tickModes().
+		for (; j + 4 <= nLive; j += 4) {
+			int k0 = live[j], k1 = live[j + 1], k2 = live[j + 2], k3 = live[j + 3];
+			float u0 = su[base + k0], u1 = su[base + k1], u2 = su[base + k2], u3 = su[base + k3];
+			float v0 = sv[base + k0], v1 = sv[base + k1], v2 = sv[base + k2], v3 = sv[base + k3];
+			float cp0 = from.cplus[k0], cp1 = from.cplus[k1], cp2 = from.cplus[k2], cp3 = from.cplus[k3];
+			float cm0 = from.cminus[k0], cm1 = from.cminus[k1], cm2 = from.cminus[k2], cm3 = from.cminus[k3];
+			float dcp0 = (to.cplus[k0] - cp0) * step, dcp1 = (to.cplus[k1] - cp1) * step;
+			float dcp2 = (to.cplus[k2] - cp2) * step, dcp3 = (to.cplus[k3] - cp3) * step;
+			float dcm0 = (to.cminus[k0] - cm0) * step, dcm1 = (to.cminus[k1] - cm1) * step;
+			float dcm2 = (to.cminus[k2] - cm2) * step, dcm3 = (to.cminus[k3] - cm3) * step;
+			float t0, t1, t2, t3;
+
+			if (in == null) {
+				for (int i = 0; i < nFrames; i++) {
+					cp0 += dcp0; cp1 += dcp1; cp2 += dcp2; cp3 += dcp3;
+					cm0 += dcm0; cm1 += dcm1; cm2 += dcm2; cm3 += dcm3;
+					t0 = cm0 * u0 - v0 + eps;
+					t1 = cm1 * u1 - v1 + eps;
+					t2 = cm2 * u2 - v2 + eps;
+					t3 = cm3 * u3 - v3 + eps;
+					v0 = cp0 * v0 + u0;
+					v1 = cp1 * v1 + u1;
+					v2 = cp2 * v2 + u2;
+					v3 = cp3 * v3 + u3;
+					u0 = t0;
+					u1 = t1;
+					u2 = t2;
+					u3 = t3;
+					out[i] = out[i] + v0 + v1 + v2 + v3;
+				}
+			} else {
+				float aa0 = from.aa[k0] * ampFrom, aa1 = from.aa[k1] * ampFrom;
+				float aa2 = from.aa[k2] * ampFrom, aa3 = from.aa[k3] * ampFrom;
+				float daa0 = (to.aa[k0] * ampTo - aa0) * step, daa1 = (to.aa[k1] * ampTo - aa1) * step;
+				float daa2 = (to.aa[k2] * ampTo - aa2) * step, daa3 = (to.aa[k3] * ampTo - aa3) * step;
+				for (int i = 0; i < nFrames; i++) {
+					float x = in[i];
+					cp0 += dcp0; cp1 += dcp1; cp2 += dcp2; cp3 += dcp3;
+					cm0 += dcm0; cm1 += dcm1; cm2 += dcm2; cm3 += dcm3;
+					aa0 += daa0; aa1 += daa1; aa2 += daa2; aa3 += daa3;
+					t0 = cm0 * u0 - v0 + aa0 * x + eps;
+					t1 = cm1 * u1 - v1 + aa1 * x + eps;
+					t2 = cm2 * u2 - v2 + aa2 * x + eps;
+					t3 = cm3 * u3 - v3 + aa3 * x + eps;
+					v0 = cp0 * v0 + u0;
+					v1 = cp1 * v1 + u1;
+					v2 = cp2 * v2 + u2;
+					v3 = cp3 * v3 + u3;
+					u0 = t0;
+					u1 = t1;
+					u2 = t2;
+					u3 = t3;
+					out[i] = out[i] + v0 + v1 + v2 + v3;
+				}
+			}
+
+			su[base + k0] = u0; su[base + k1] = u1; su[base + k2] = u2; su[base + k3] = u3;
+			sv[base + k0] = v0; sv[base + k1] = v1; sv[base + k2] = v2; sv[base + k3] = v3;
+		}
+
+		// The remaining modes one at a time.
+		for (; j < nLive; j++) {
+			int mode = live[j];
+			float u = su[base + mode];
+			float v = sv[base + mode];
+			float cp = from.cplus[mode];
+			float cm = from.cminus[mode];
+			float aaa = from.aa[mode] * ampFrom;
+			float dcp = (to.cplus[mode] - cp) * step;
+			float dcm = (to.cminus[mode] - cm) * step;
+			float daa = (to.aa[mode] * ampTo - aaa) * step;
+			float t;
+
+			if (in == null) {
+				for (int i = 0; i < nFrames; i++) {
+					cp += dcp;
+					cm += dcm;
+					t = cm * u - v + eps;
+					v = cp * v + u;
+					u = t;
+					out[i] += v;
+				}
+			} else {
+				for (int i = 0; i < nFrames; i++) {
+					cp += dcp;
+					cm += dcm;
+					aaa += daa;
+					t = cm * u - v + aaa * in[i] + eps;
+					v = cp * v + u;
+					u = t;
+					out[i] += v;
+				}
+			}
+
+			su[base + mode] = u;
+			sv[base + mode] = v;
+		}
+
+		m_coeffs = to;
+		m_modAmp = ampTo;
+		if (to != from)
+			liveBelowNyquist(from);
+	}
+
+	/**
+	 * Run the modes being dropped for one block, adding their output to out with a gain ramped down to 0,
+	 * so that dropping them doesn't click. Their state is then zeroed.
+	 */
+	private void fadeModes(float[] out, float[] in, int nFrames) {
+		float[] su = m_u;
+		float[] sv = m_v;
+		int base = m_stateBase;
+		final float eps = DENORMALISATION_EPSILON;
+		float step = 1f / nFrames;
+		float[] cplus = m_coeffs.cplus;
+		float[] cminus = m_coeffs.cminus;
+		float[] aa = m_coeffs.aa;
+		float amp = m_auxAmpScale;
+
+		for (int mode = m_nActiveModes - m_nFading; mode < m_nActiveModes; mode++) {
+			if (aliases(mode))
+				continue;
+			float u = su[base + mode];
+			float v = sv[base + mode];
+			float cp = cplus[mode];
+			float cm = cminus[mode];
+			float aaa = aa[mode] * amp;
+			float g = 1f;
+			float t;
+
+			for (int i = 0; i < nFrames; i++) {
+				t = cm * u - v + (in == null ? 0f : aaa * in[i]) + eps;
+				v = cp * v + u;
+				u = t;
+				g -= step;
+				out[i] += g * v;
+			}
+
+			su[base + mode] = 0;
+			sv[base + mode] = 0;
+		}
+	}
+
+	/**
+	 * The input samples as an array, copying a direct block, or null if silent.
+	 */
+	private float[] input(float[] inArray, boolean silent) {
+		if (silent || inArray != null)
+			return inArray;
+		m_inScratch = scratch(m_inScratch);
+		getM_input().copyTo(m_inScratch);
+		return m_inScratch;
+	}
+
+	private float[] scratch(float[] a) {
+		int n = scene.getNMaxFrames();
+		return (a != null && a.length >= n) ? a : new float[n];
+	}
+
+	public float estimateVolume()
+	{
+		float u;
+		float v;
+		int mode;
+		float lsqr = 0;
+		if (m_nLive == 0)
+			return 0;
+		float[] l0 = m_coeffs.l0;
+		float[] l1 = m_coeffs.l1;
+
+		for (int j = 0; j < m_nLive; j++) {
+			mode = m_live[j];
+
+			// Use state variables to find mode levels and estimated total level
+			// (squared)
+			// (total level is sqrt energy. energy = sum of mode energies = sum
+			// of mode levels squared)
+
+			u = m_u[m_stateBase + mode];
+			v = m_v[m_stateBase + mode];
+
+			lsqr += l1[mode] * ((u + v) * (u + v) + l0[mode] * u * v);
+		}
+		return lsqr;
+	}
+	
+	public boolean isQuiet() {
+		if (makeQuiet) {
+			makeQuiet = false;
+			return true;
+		}
+
+		float lsqr = estimateVolume();
+
+		// Modes are quietened separately by cull(), but only on blocks with no input, so contacts are
+		// never faded and rewoken mode by mode.
+
+		return (lsqr < m_quietLevelSqr);
+	}
+
+	public int getTimeCost() {
+		// For now a rough estimate of time cost, on an arbitrary scale.
+		return m_nActiveModes * 10;
+	}
+}
@@ -1,318 +1,484 @@
-/*
-Copyright (c) 2009, Sam Bayless
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.scene;
-
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
-
-import com.jphya.contact.Contact;
-import com.jphya.contact.ContactGenerator;
-import com.jphya.impact.Impact;
-import com.jphya.impact.ImpactGenerator;
-import com.jphya.resonator.Resonator;
-import com.jphya.signal.Block;
-import com.jphya.utility.AllocationManager;
-
-
-/**
- * This abstract scene manages scene resources.
- * @author Sam
- *
- */
-public abstract class AbstractScene {
-	
-	protected final Collection<Contact> contacts = new HashSet<Contact>();
-	protected final Collection<Resonator> resonators=new HashSet<Resonator>();
-	protected final Collection<Impact> impacts=new HashSet<Impact>();
-	protected final Collection<Block> blocks=new HashSet<Block>();
-	protected final Collection<ContactGenerator> contactGenerators=new HashSet<ContactGenerator>();
-	protected final Collection<ImpactGenerator> impactGenerators=new HashSet<ImpactGenerator>();
-
-	private final Collection<Contact> immutableContacts = Collections.unmodifiableCollection(contacts);
-	private final Collection<Resonator> immutableResonators = Collections.unmodifiableCollection(resonators);
-	private final Collection<Impact> immutableImpacts = Collections.unmodifiableCollection(impacts);
-	private final Collection<Block> immutableBlocks = Collections.unmodifiableCollection(blocks);
-	private final Collection<ContactGenerator> immutableContactGenerators = Collections.unmodifiableCollection(contactGenerators);
-	private final Collection<ImpactGenerator> immutableImpactGenerators = Collections.unmodifiableCollection(impactGenerators);
-	
-	private final AllocationManager allocationManager = new AllocationManager();
-	
-	/**
-	 * Return a shared allocation manager that all elements of the scene may, optionally, use to reduce on instance creation/deletion.
-	 * @return
-	 */
-	public AllocationManager getAllocationManager()
-	{
-		return allocationManager;
-	}
-	
-	/**
-	 * An immutable view of the scene's active contacts.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<Contact> getActiveContacts() {
-		return immutableContacts;
-	}
-	
-	/**
-	 * An immutable view of the scene's active resonators.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<Resonator> getActiveResonators() {
-		return immutableResonators;
-	}
-	
-	/**
-	 * An immutable view of the scene's active impacts.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<Impact> getActiveImpacts() {
-		return immutableImpacts;
-	}
-	
-	/**
-	 * An immutable view of the scene's active sound blocks.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<Block> getActiveBlocks() {
-		return immutableBlocks;
-	}
-	
-	/**
-	 * An immutable view of the scene's active contact generators.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<ContactGenerator> getActiveContactGenerators() {
-		return immutableContactGenerators;
-	}
-	
-	/**
-	 * An immutable view of the scene's active impact generators.
-	 * Note: The user must manually lock the scene before iterating through this collection.
-	 * @return
-	 */
-	public Collection<ImpactGenerator> getActiveImpactGenerators() {
-		return immutableImpactGenerators;
-	}
-	
-/*	protected void updateScene()
-	{	
-		  lock();
-		  try{
-			contacts_thread.clear();
-			contacts_thread.addAll(contacts);
-			
-			impacts_thread.clear();
-			impacts_thread.addAll(impacts);
-			
-			resonators_thread.clear();
-			resonators_thread.addAll(resonators);
-		  }finally{
-			  unlock();
-		  }
-	
-	}*/
-	
-	/**
-	 * This thread safe method adds a contact to the scene.
-	 */
-	public void addContact(Contact c)
-	{
-		lock();
-		try{
-		this.contacts.add(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method adds a resonator to the scene.
-	 */
-	public void addResontaor(Resonator r)
-	{
-		lock();
-		try{
-		this.resonators.add(r);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method adds an impact to the scene.
-	 */
-	public void addImpact(Impact c)
-	{
-		
-		lock();
-		try{
-		this.impacts.add(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method adds a block to the scene.
-	 */
-	public void addBlock(Block c)
-	{
-		lock();
-		try{
-		this.blocks.add(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method adds a contact generator to the scene.
-	 */
-	public void addContactGenerator(ContactGenerator c)
-	{
-		lock();
-		try{
-		this.contactGenerators.add(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method adds an impact generator to the scene.
-	 */
-	public void addImpactGenerator(ImpactGenerator c)
-	{
-		lock();
-		try{
-		this.impactGenerators.add(c);
-		}finally{
-			unlock();
-		}
-	}
-
-	/**
-	 * This thread safe method removes a contact from the scene.
-	 */
-	public void removeContact(Contact c)//could make this constant time if each item knew its position
-	{
-		lock();
-		try{
-			this.contacts.remove(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method removes a resonator from the scene.
-	 */
-	public void removeResontaor(Resonator r)
-	{
-		lock();
-		try{
-		this.resonators.remove(r);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method removes an impact from the scene.
-	 */
-	public void removeImpact(Impact c)
-	{
-		lock();
-		try{
-		this.impacts.remove(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method removes a sound block from the scene.
-	 */
-	public void removeBlock(Block c)
-	{
-		lock();
-		try{
-		this.blocks.remove(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method removes a contact generator from the scene.
-	 */
-	public void removeContactGenerator(ContactGenerator c)
-	{
-		lock();
-		try{
-		this.contactGenerators.remove(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * This thread safe method removes an impact generator from the scene.
-	 */
-	public void removeImpactGenerator(ImpactGenerator c)
-	{
-		lock();
-		try{
-		this.impactGenerators.remove(c);
-		}finally{
-			unlock();
-		}
-	}
-	
-	/**
-	 * The user must manually lock the scene before iterating over sound objects.
-	 * Add/Remove methods automatically lock the scene.
-	 * This method will block until the lock becomes available.
-	 */
-	public abstract void lock();
-	public abstract void unlock();
-	
-	/**
-	 * The user must manually lock the scene before iterating over sound objects.
-	 * Add/Remove methods automatically lock the scene.
-	 * Returns true if the lock could be acquired without waiting; returns false if the lock
-	 * could not be acquired.
-	 */
-	public abstract boolean tryLock();
-	
-}
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+
+import com.jphya.contact.Contact;
+import com.jphya.contact.ContactGenerator;
+import com.jphya.impact.Impact;
+import com.jphya.impact.ImpactGenerator;
+import com.jphya.resonator.Resonator;
+import com.jphya.signal.Block;
+import com.jphya.utility.AllocationManager;
+import com.jphya.utility.IndexedList;
+
+
+/**
+ * This abstract scene manages scene resources.
+ * @author Sam
+ *
+ */
+public abstract class AbstractScene {
+	
+	/*
+	 * Each object remembers its slot in its list, so membership changes and tests are constant time,
+	 * and the audio thread can walk the lists by index.
+	 */
+	protected final IndexedList<Contact> contacts = new IndexedList<Contact>();
+	protected final IndexedList<Resonator> resonators=new IndexedList<Resonator>();
+	protected final IndexedList<Impact> impacts=new IndexedList<Impact>();
+	protected final IndexedList<Block> blocks=new IndexedList<Block>();
+	protected final IndexedList<ContactGenerator> contactGenerators=new IndexedList<ContactGenerator>();
+	protected final IndexedList<ImpactGenerator> impactGenerators=new IndexedList<ImpactGenerator>();
+
+	/*
+	 * Copies of the lists for other threads to read, with the scene locked. The audio thread never waits for the lock:
+	 * it refreshes the copies of the lists a tick added to or removed from, whenever it finds the lock free.
+	 */
+	private final ArrayList<Contact> publishedContacts = new ArrayList<Contact>();
+	private final ArrayList<Resonator> publishedResonators = new ArrayList<Resonator>();
+	private final ArrayList<Impact> publishedImpacts = new ArrayList<Impact>();
+	private final ArrayList<Block> publishedBlocks = new ArrayList<Block>();
+	private final ArrayList<ContactGenerator> publishedContactGenerators = new ArrayList<ContactGenerator>();
+	private final ArrayList<ImpactGenerator> publishedImpactGenerators = new ArrayList<ImpactGenerator>();
+	// The lists changed since they were last copied, one bit each.
+	private static final int CONTACTS = 1, RESONATORS = 2, IMPACTS = 4, BLOCKS = 8, CONTACT_GENERATORS = 16,
+			IMPACT_GENERATORS = 32;
+	private int staleLists = 0;
+
+	private final Collection<Contact> immutableContacts = Collections.unmodifiableCollection(publishedContacts);
+	private final Collection<Resonator> immutableResonators = Collections.unmodifiableCollection(publishedResonators);
+	private final Collection<Impact> immutableImpacts = Collections.unmodifiableCollection(publishedImpacts);
+	private final Collection<Block> immutableBlocks = Collections.unmodifiableCollection(publishedBlocks);
+	private final Collection<ContactGenerator> immutableContactGenerators = Collections.unmodifiableCollection(publishedContactGenerators);
+	private final Collection<ImpactGenerator> immutableImpactGenerators = Collections.unmodifiableCollection(publishedImpactGenerators);
+	
+	private final AllocationManager allocationManager = new AllocationManager();
+	
+	/**
+	 * Changes queued by other threads for the audio thread. Lock free for any number of producers.
+	 */
+	private final CommandQueue commands = new CommandQueue();
+	
+	/**
+	 * Incremented whenever a contact, resonator or impact joins or leaves the scene.
+	 * Only changed by the audio thread.
+	 */
+	private int membershipEpoch = 0;
+	
+	/**
+	 * Return a count that changes whenever the set of active contacts, resonators or impacts changes.
+	 * The audio thread compares this against the value it last saw, to decide whether its snapshot is stale.
+	 */
+	protected int getMembershipEpoch()
+	{
+		return membershipEpoch;
+	}
+	
+	/**
+	 * Return a shared allocation manager that all elements of the scene may, optionally, use to reduce on instance creation/deletion.
+	 * @return
+	 */
+	public AllocationManager getAllocationManager()
+	{
+		return allocationManager;
+	}
+	
+	/**
+	 * An immutable view of the scene's active contacts, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<Contact> getActiveContacts() {
+		return immutableContacts;
+	}
+	
+	/**
+	 * An immutable view of the scene's active resonators, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<Resonator> getActiveResonators() {
+		return immutableResonators;
+	}
+	
+	/**
+	 * An immutable view of the scene's active impacts, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<Impact> getActiveImpacts() {
+		return immutableImpacts;
+	}
+	
+	/**
+	 * An immutable view of the scene's active sound blocks, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<Block> getActiveBlocks() {
+		return immutableBlocks;
+	}
+	
+	/**
+	 * An immutable view of the scene's active contact generators, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<ContactGenerator> getActiveContactGenerators() {
+		return immutableContactGenerators;
+	}
+	
+	/**
+	 * An immutable view of the scene's active impact generators, as of the end of a recent tick.
+	 * Note: The user must manually lock the scene before iterating through this collection.
+	 * @return
+	 */
+	public Collection<ImpactGenerator> getActiveImpactGenerators() {
+		return immutableImpactGenerators;
+	}
+	
+/*	protected void updateScene()
+	{	
+		  lock();
+		  try{
+			contacts_thread.clear();
+			contacts_thread.addAll(contacts);
+			
+			impacts_thread.clear();
+			impacts_thread.addAll(impacts);
+			
+			resonators_thread.clear();
+			resonators_thread.addAll(resonators);
+		  }finally{
+			  unlock();
+		  }
+	
+	}*/
+	
+	/**
+	 * This thread safe method adds a contact to the scene.
+	 */
+	public void addContact(Contact c)
+	{
+		change(SceneCommand.ADD_CONTACT, c);
+	}
+	
+	/**
+	 * This thread safe method adds a resonator to the scene.
+	 */
+	public void addResontaor(Resonator r)
+	{
+		change(SceneCommand.ADD_RESONATOR, r);
+	}
+	
+	/**
+	 * This thread safe method adds an impact to the scene.
+	 */
+	public void addImpact(Impact c)
+	{
+		change(SceneCommand.ADD_IMPACT, c);
+	}
+	
+	/**
+	 * This thread safe method adds a block to the scene.
+	 */
+	public void addBlock(Block c)
+	{
+		change(SceneCommand.ADD_BLOCK, c);
+	}
+	
+	/**
+	 * This thread safe method adds a contact generator to the scene.
+	 */
+	public void addContactGenerator(ContactGenerator c)
+	{
+		change(SceneCommand.ADD_CONTACT_GENERATOR, c);
+	}
+	
+	/**
+	 * This thread safe method adds an impact generator to the scene.
+	 */
+	public void addImpactGenerator(ImpactGenerator c)
+	{
+		change(SceneCommand.ADD_IMPACT_GENERATOR, c);
+	}
+	
+	/**
+	 * This thread safe method removes a contact from the scene.
+	 */
+	public void removeContact(Contact c)
+	{
+		change(SceneCommand.REMOVE_CONTACT, c);
+	}
+	
+	/**
+	 * This thread safe method removes a resonator from the scene.
+	 */
+	public void removeResontaor(Resonator r)
+	{
+		change(SceneCommand.REMOVE_RESONATOR, r);
+	}
+	
+	/**
+	 * This thread safe method removes an impact from the scene.
+	 */
+	public void removeImpact(Impact c)
+	{
+		change(SceneCommand.REMOVE_IMPACT, c);
+	}
+	
+	/**
+	 * This thread safe method removes a sound block from the scene.
+	 */
+	public void removeBlock(Block c)
+	{
+		change(SceneCommand.REMOVE_BLOCK, c);
+	}
+	
+	/**
+	 * This thread safe method removes a contact generator from the scene.
+	 */
+	public void removeContactGenerator(ContactGenerator c)
+	{
+		change(SceneCommand.REMOVE_CONTACT_GENERATOR, c);
+	}
+	
+	/**
+	 * This thread safe method removes an impact generator from the scene.
+	 */
+	public void removeImpactGenerator(ImpactGenerator c)
+	{
+		change(SceneCommand.REMOVE_IMPACT_GENERATOR, c);
+	}
+	
+	/**
+	 * Queue the deletion of a contact, to be carried out by the audio thread at the start of the next tick.
+	 * Use Contact.deleteContact(), which calls this when needed.
+	 */
+	public void deleteContactLater(Contact c)
+	{
+		commands.add(SceneCommand.DELETE_CONTACT, c);
+		commandQueued();
+	}
+	
+	/**
+	 * Queue the deletion of an impact, to be carried out by the audio thread at the start of the next tick.
+	 * Use Impact.deleteImpact(), which calls this when needed.
+	 */
+	public void deleteImpactLater(Impact i)
+	{
+		commands.add(SceneCommand.DELETE_IMPACT, i);
+		commandQueued();
+	}
+	
+	/**
+	 * Run an update on the audio thread at the start of the next tick.
+	 * Use this to change objects that the audio thread may be using. The scene is not locked while it runs.
+	 */
+	public void invokeLater(Runnable r)
+	{
+		commands.add(SceneCommand.RUN, r);
+		commandQueued();
+	}
+	
+	/**
+	 * Changes made on the audio thread are applied straight away, so that the tick sees its own changes.
+	 * Changes from any other thread are queued without locking, so the audio thread never waits for them.
+	 */
+	private void change(int type, Object target)
+	{
+		if (isRenderThread()) {
+			apply(type, target);
+		} else {
+			commands.add(type, target);
+			commandQueued();
+		}
+	}
+	
+	/**
+	 * True if other threads have queued changes since the last drainCommands().
+	 */
+	protected boolean hasCommands()
+	{
+		return !commands.isEmpty();
+	}
+	
+	/**
+	 * Called after a change has been queued by another thread.
+	 */
+	protected void commandQueued()
+	{
+	}
+	
+	/**
+	 * Apply the changes queued by other threads. Called by the audio thread, which does not lock the scene to do so.
+	 */
+	protected void drainCommands()
+	{
+		int type;
+		while ((type = commands.peekType()) >= 0)
+			apply(type, commands.take());
+	}
+	
+	/**
+	 * Copy the lists that have changed to the collections other threads see, if the lock is free.
+	 * Called by the audio thread at the end of a tick.
+	 */
+	protected void publishLists()
+	{
+		int stale = staleLists;
+		if (stale == 0 || !tryLockNow())
+			return;
+		try{
+			if ((stale & CONTACTS) != 0)
+				copy(contacts, publishedContacts);
+			if ((stale & RESONATORS) != 0)
+				copy(resonators, publishedResonators);
+			if ((stale & IMPACTS) != 0)
+				copy(impacts, publishedImpacts);
+			if ((stale & BLOCKS) != 0)
+				copy(blocks, publishedBlocks);
+			if ((stale & CONTACT_GENERATORS) != 0)
+				copy(contactGenerators, publishedContactGenerators);
+			if ((stale & IMPACT_GENERATORS) != 0)
+				copy(impactGenerators, publishedImpactGenerators);
+			staleLists = 0;
+		}finally{
+			unlock();
+		}
+	}
+	
+	private static <E extends IndexedList.Member> void copy(IndexedList<E> from, ArrayList<E> to)
+	{
+		to.clear();
+		for (int i = 0; i < from.size(); i++)
+			to.add(from.get(i));
+	}
+	
+	private void apply(int type, Object target)
+	{
+		// Only membership changes make the published lists stale.
+		switch (type) {
+		case SceneCommand.ADD_CONTACT:
+			if (contacts.add((Contact) target))
+				changed(CONTACTS);
+			break;
+		case SceneCommand.REMOVE_CONTACT:
+			if (contacts.remove((Contact) target))
+				changed(CONTACTS);
+			break;
+		case SceneCommand.DELETE_CONTACT:
+			Contact.deleteContact((Contact) target);
+			break;
+		case SceneCommand.ADD_RESONATOR:
+			if (resonators.add((Resonator) target))
+				changed(RESONATORS);
+			break;
+		case SceneCommand.REMOVE_RESONATOR:
+			if (resonators.remove((Resonator) target))
+				changed(RESONATORS);
+			break;
+		case SceneCommand.ADD_IMPACT:
+			if (impacts.add((Impact) target))
+				changed(IMPACTS);
+			break;
+		case SceneCommand.REMOVE_IMPACT:
+			if (impacts.remove((Impact) target))
+				changed(IMPACTS);
+			break;
+		case SceneCommand.DELETE_IMPACT:
+			Impact.deleteImpact((Impact) target);
+			break;
+		case SceneCommand.ADD_BLOCK:
+			if (blocks.add((Block) target))
+				staleLists |= BLOCKS;
+			break;
+		case SceneCommand.REMOVE_BLOCK:
+			if (blocks.remove((Block) target))
+				staleLists |= BLOCKS;
+			break;
+		case SceneCommand.ADD_CONTACT_GENERATOR:
+			if (contactGenerators.add((ContactGenerator) target))
+				staleLists |= CONTACT_GENERATORS;
+			break;
+		case SceneCommand.REMOVE_CONTACT_GENERATOR:
+			if (contactGenerators.remove((ContactGenerator) target))
+				staleLists |= CONTACT_GENERATORS;
+			break;
+		case SceneCommand.ADD_IMPACT_GENERATOR:
+			if (impactGenerators.add((ImpactGenerator) target))
+				staleLists |= IMPACT_GENERATORS;
+			break;
+		case SceneCommand.REMOVE_IMPACT_GENERATOR:
+			if (impactGenerators.remove((ImpactGenerator) target))
+				staleLists |= IMPACT_GENERATORS;
+			break;
+		case SceneCommand.RUN:
+			((Runnable) target).run();
+			break;
+		}
+	}
+	
+	// A contact, resonator or impact joined or left the scene.
+	private void changed(int list)
+	{
+		staleLists |= list;
+		membershipEpoch++;
+	}
+	
+	/**
+	 * True if the calling thread is the one ticking the scene, and so may change it directly.
+	 */
+	public abstract boolean isRenderThread();
+	
+	/**
+	 * The user must manually lock the scene before iterating over sound objects.
+	 * Add/Remove methods called from other threads are queued, and take effect at the start of the next tick.
+	 * The lock only guards the collections returned by getActiveContacts() and the like: the audio thread
+	 * never waits for it, so holding it does not hold up the sound.
+	 * This method will block until the lock becomes available.
+	 */
+	public abstract void lock();
+	public abstract void unlock();
+	
+	/**
+	 * The user must manually lock the scene before iterating over sound objects.
+	 * Add/Remove methods called from other threads are queued, and take effect at the start of the next tick.
+	 * Returns true if the lock could be acquired without waiting; returns false if the lock
+	 * could not be acquired.
+	 */
+	public abstract boolean tryLock();
+	
+	/**
+	 * Take the lock only if it is free right now. Used by the audio thread, which must never wait for it.
+	 */
+	protected abstract boolean tryLockNow();
+	
+}
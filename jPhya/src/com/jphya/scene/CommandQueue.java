@@ -0,0 +1,124 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Scene changes queued by any number of threads, for the audio thread.
+ * Changes are stored as a type and a target in fixed size segments, so queueing one allocates nothing, apart from
+ * a new segment once every SEGMENT_SIZE changes, and neither side ever locks or waits.
+ * Changes are taken in the order their slots were claimed. A change whose slot has been claimed but not yet
+ * written holds back the ones behind it until the next drain.
+ * @author Sam
+ *
+ */
+final class CommandQueue {
+	
+	static final int SEGMENT_SIZE = 256;
+	
+	private static final class Segment {
+		final AtomicInteger claimed = new AtomicInteger();
+		final AtomicIntegerArray types = new AtomicIntegerArray(SEGMENT_SIZE); // type + 1 once written, 0 before.
+		final Object[] targets = new Object[SEGMENT_SIZE];
+		final AtomicReference<Segment> next = new AtomicReference<Segment>();
+	}
+	
+	private final AtomicReference<Segment> tail;
+	
+	// Only used by the audio thread.
+	private Segment head;
+	private int headIndex = 0;
+	
+	CommandQueue() {
+		head = new Segment();
+		tail = new AtomicReference<Segment>(head);
+	}
+	
+	/**
+	 * Queue a change. Any thread.
+	 */
+	void add(int type, Object target) {
+		for (;;) {
+			Segment s = tail.get();
+			int i = s.claimed.getAndIncrement();
+			if (i < SEGMENT_SIZE) {
+				s.targets[i] = target;
+				s.types.lazySet(i, type + 1); // Publishes the target.
+				return;
+			}
+			
+			// The segment is full. Link a new one, or help the thread that did.
+			Segment next = s.next.get();
+			if (next == null) {
+				Segment grown = new Segment();
+				next = s.next.compareAndSet(null, grown) ? grown : s.next.get();
+			}
+			tail.compareAndSet(s, next);
+		}
+	}
+	
+	/**
+	 * True if there is no change ready to take.
+	 */
+	boolean isEmpty() {
+		Segment s = head;
+		int i = headIndex;
+		if (i == SEGMENT_SIZE) {
+			s = s.next.get();
+			if (s == null)
+				return true;
+			i = 0;
+		}
+		return s.types.get(i) == 0;
+	}
+	
+	/**
+	 * Return the type of the next change, or -1 if there is none ready. Audio thread only.
+	 */
+	int peekType() {
+		if (headIndex == SEGMENT_SIZE) {
+			Segment next = head.next.get();
+			if (next == null)
+				return -1;
+			head = next;
+			headIndex = 0;
+		}
+		return head.types.get(headIndex) - 1;
+	}
+	
+	/**
+	 * Remove the change whose type peekType() returned, and return its target. Audio thread only.
+	 */
+	Object take() {
+		Object target = head.targets[headIndex];
+		head.targets[headIndex] = null;
+		headIndex++;
+		return target;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.jphya.resonator.Resonator;
+
+/**
+ * Measures how long resonators and surface generators take to tick, and admits new resonators
+ * against the time available in a block.
+ * Each resonator or generator class keeps a moving average of its measured cost. Resonator costs are
+ * kept per unit of Resonator.getTimeCost(), so that resonators of one class with different numbers of
+ * modes are estimated in proportion.
+ * Only used by the audio thread.
+ * @author Sam
+ *
+ */
+final class CostModel {
+	
+	/*
+	 * Costs assumed before a class has been measured: ns per unit of getTimeCost() for resonators,
+	 * and ns per block for generators. About right for a current desktop CPU.
+	 */
+	private static final float DEFAULT_NS_PER_COST = 50f;
+	private static final float DEFAULT_GENERATOR_NS = 2000f;
+	
+	private static final float SMOOTHING = 1f/16f; // Weight of each new measurement in the moving averages.
+	
+	/*
+	 * Measurements are limited to this multiple of the average before being added, so that a
+	 * stall, or code that has not yet been compiled, can't close the scene to new resonators.
+	 */
+	private static final float MAX_JUMP = 4f;
+	
+	private static final class Average {
+		float value;
+		boolean sampled = false;
+		
+		Average(float initial) {
+			value = initial;
+		}
+		
+		void add(float sample) {
+			value += (Math.min(sample, value * MAX_JUMP) - value) * SMOOTHING;
+			sampled = true;
+		}
+	}
+	
+	private final Map<Class<?>, Average> averages = new HashMap<Class<?>, Average>();
+	
+	private float maxLoad = 0.85f;
+	private long committed = 0; // Estimated ns of the resonators active this block.
+	private float generatorTime = 0; // Estimated ns of the generators ticked so far this block.
+	private float generatorLoad = 0; // Moving average of generatorTime over blocks.
+	
+	float getMaxLoad() {
+		return maxLoad;
+	}
+	
+	void setMaxLoad(float maxLoad) {
+		this.maxLoad = maxLoad;
+	}
+	
+	/**
+	 * Estimated ns a resonator takes to tick one block.
+	 */
+	long estimate(Resonator res) {
+		Average a = averages.get(res.getClass());
+		float nsPerCost = a != null ? a.value : DEFAULT_NS_PER_COST;
+		return (long) (nsPerCost * Math.max(1, res.getTimeCost()));
+	}
+	
+	/**
+	 * Measured average ns per block for a generator class, or per unit of getTimeCost() for a resonator
+	 * class. Returns -1 if the class has not been measured.
+	 */
+	float getAverage(Class<?> type) {
+		Average a = averages.get(type);
+		return (a != null && a.sampled) ? a.value : -1f;
+	}
+	
+	void sampleResonator(Resonator res, long ns) {
+		average(res.getClass(), DEFAULT_NS_PER_COST).add(ns / (float) Math.max(1, res.getTimeCost()));
+	}
+	
+	void sampleGenerator(Object gen, long ns) {
+		Average a = average(gen.getClass(), DEFAULT_GENERATOR_NS);
+		a.add(ns);
+		generatorTime += a.value;
+	}
+	
+	/**
+	 * Start accounting for a block, with the resonators carried over from the last one.
+	 */
+	void beginBlock(List<Resonator> active) {
+		generatorLoad += (generatorTime - generatorLoad) * SMOOTHING;
+		generatorTime = 0;
+		
+		committed = 0;
+		for (int i = 0; i < active.size(); i++)
+			committed += estimate(active.get(i));
+	}
+	
+	/**
+	 * Returns true, and commits its time, if a resonator fits into the budget for a block of blockTime ns
+	 * on the given number of threads.
+	 */
+	boolean admit(Resonator res, float blockTime, int threads) {
+		long cost = estimate(res);
+		if (committed + generatorLoad + cost > blockTime * maxLoad * threads)
+			return false;
+		committed += cost;
+		return true;
+	}
+	
+	/**
+	 * Fraction of a block of blockTime ns on the given number of threads that is committed.
+	 */
+	float getLoad(float blockTime, int threads) {
+		return (committed + generatorLoad) / (blockTime * threads);
+	}
+	
+	private Average average(Class<?> type, float initial) {
+		Average a = averages.get(type);
+		if (a == null) {
+			a = new Average(initial);
+			averages.put(type, a);
+		}
+		return a;
+	}
+}
@@ -0,0 +1,83 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import com.jphya.contact.ContactGenerator;
+import com.jphya.impact.Impact;
+import com.jphya.impact.ImpactGenerator;
+import com.jphya.resonator.Resonator;
+import com.jphya.signal.Block;
+
+/**
+ * One surface generator's contribution to a block, recorded by the scene before the
+ * generator is ticked, so that generators can be ticked in parallel and mixed afterwards.
+ * @author Sam
+ *
+ */
+class Excitation {
+	ContactGenerator contactGen; // Exactly one of the generators is set.
+	ImpactGenerator impactGen;
+	boolean fadeout; // Fade the generator output over the block, for contacts being deleted.
+
+	Block output;
+	float directGain;
+	Resonator res; // Resonator driven directly by the generator, if any. Activated when the excitation is mixed.
+	Resonator otherRes; // Cross coupled resonator, if any.
+	float otherResGain;
+
+	Impact impact; // Set for impact generators, which are shut down once quiet.
+	int side; // Which of the impact's generators this is, 1 or 2.
+
+	long time; // Measured ns to tick the generator.
+
+	void tick() {
+		long start = System.nanoTime();
+		if (contactGen != null) {
+			contactGen.setOutput(output);
+			contactGen.tick();
+		} else {
+			impactGen.setOutput(output);
+			impactGen.tick();
+		}
+		if (fadeout)
+			output.fadeout();
+		time = System.nanoTime() - start;
+	}
+
+	void clear() {
+		contactGen = null;
+		impactGen = null;
+		fadeout = false;
+		output = null;
+		directGain = 0;
+		res = null;
+		otherRes = null;
+		otherResGain = 0;
+		impact = null;
+		side = 0;
+		time = 0;
+	}
+}
@@ -0,0 +1,64 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Ticks a range of surface generator excitations, each into its own output block.
+ * @author Sam
+ *
+ */
+class ExcitationTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Excitation> excitations;
+	private final int grain;
+	private final int from;
+	private final int to;
+
+	ExcitationTask(List<Excitation> excitations, int grain, int from, int to) {
+		this.excitations = excitations;
+		this.grain = grain;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= 1 || to - from <= grain) {
+			for (int i = from; i < to; i++)
+				excitations.get(i).tick();
+			return;
+		}
+
+		int mid = (from + to) >>> 1;
+		invokeAll(new ExcitationTask(excitations, grain, from, mid),
+				new ExcitationTask(excitations, grain, mid, to));
+	}
+}
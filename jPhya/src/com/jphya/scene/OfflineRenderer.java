@@ -0,0 +1,114 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+/**
+ * Renders a scene as fast as possible, rather than in real time, into the scene's output stream
+ * (for example a WavFileOutputStream).
+ * The scene is switched to offline mode, so the result does not depend on the speed of the machine.
+ * Each renderer runs on the calling thread and shares nothing with other scenes, so many renders can run at once.
+ * Offline scenes calculate their coefficients on the calling thread too, but should still be closed when done.
+ * @author Sam
+ *
+ */
+public class OfflineRenderer {
+	
+	private final Scene scene;
+	private long framesRendered = 0;
+	private long renderTime = 0; // ns spent in the last render
+	private long lastFrames = 0; // frames rendered by the last render
+	
+	public OfflineRenderer(Scene scene) {
+		this.scene = scene;
+		scene.setRealtime(false);
+	}
+	
+	public Scene getScene() {
+		return scene;
+	}
+	
+	/**
+	 * Render the given number of seconds of audio, rounded up to whole blocks.
+	 * Returns the number of frames rendered.
+	 */
+	public long render(float seconds) {
+		long frames = (long) Math.ceil(seconds * scene.getFPS());
+		long start = System.nanoTime();
+		long rendered = 0;
+		while (rendered < frames) {
+			scene.generate();
+			rendered += scene.getNFrames();
+		}
+		finish(rendered, start);
+		return rendered;
+	}
+	
+	/**
+	 * Render until the scene has nothing more to play (no contacts, impacts or sounding resonators),
+	 * or maxSeconds have been rendered. Returns the number of frames rendered.
+	 */
+	public long renderUntilSilent(float maxSeconds) {
+		long frames = (long) Math.ceil(maxSeconds * scene.getFPS());
+		long start = System.nanoTime();
+		long rendered = 0;
+		// Always render at least one block, so that changes queued before the first tick are applied.
+		do {
+			scene.generate();
+			rendered += scene.getNFrames();
+		} while (rendered < frames && !scene.isIdle());
+		finish(rendered, start);
+		return rendered;
+	}
+	
+	/**
+	 * Total frames rendered by this renderer.
+	 */
+	public long getFramesRendered() {
+		return framesRendered;
+	}
+	
+	/**
+	 * Seconds of audio rendered per second of wall clock time, for the last render.
+	 */
+	public float getRealtimeFactor() {
+		if (renderTime <= 0)
+			return 0f;
+		return (lastFrames / scene.getFPS()) / (renderTime / 1000000000f);
+	}
+	
+	/**
+	 * Close the scene once rendering is finished. See Scene.close().
+	 */
+	public void close() {
+		scene.close();
+	}
+	
+	private void finish(long rendered, long start) {
+		renderTime = System.nanoTime() - start;
+		lastFrames = rendered;
+		framesRendered += rendered;
+	}
+}
@@ -0,0 +1,103 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import com.jphya.resonator.Resonator;
+import com.jphya.signal.Block;
+
+/**
+ * Ticks a range of resonators, each into its own output block.
+ * Ranges are split in two by accumulated time cost until they are cheap enough to run directly.
+ * @author Sam
+ *
+ */
+class ResonatorTask extends RecursiveAction {
+
+	private static final long serialVersionUID = 1L;
+
+	private final List<Resonator> resonators;
+	private final List<Block> outputs;
+	private final boolean[] quiet;
+	private final boolean[] stolen;
+	private final long[] time; // Measured ns to tick each resonator.
+	private final long[] costPrefix; // costPrefix[i] is the total estimated ns of resonators 0..i-1
+	private final long grain;
+	private final int from;
+	private final int to;
+
+	ResonatorTask(List<Resonator> resonators, List<Block> outputs, boolean[] quiet, boolean[] stolen, long[] time, long[] costPrefix, long grain, int from, int to) {
+		this.resonators = resonators;
+		this.outputs = outputs;
+		this.quiet = quiet;
+		this.stolen = stolen;
+		this.time = time;
+		this.costPrefix = costPrefix;
+		this.grain = grain;
+		this.from = from;
+		this.to = to;
+	}
+
+	@Override
+	protected void compute() {
+		if (to - from <= 1 || costPrefix[to] - costPrefix[from] <= grain) {
+			for (int i = from; i < to; i++)
+				tickResonator(i);
+			return;
+		}
+
+		// Split at the first resonator that takes the cost past half way.
+		long half = (costPrefix[from] + costPrefix[to]) / 2;
+		int lo = from + 1;
+		int hi = to - 1;
+		while (lo < hi) {
+			int mid = (lo + hi) >>> 1;
+			if (costPrefix[mid] < half)
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		invokeAll(new ResonatorTask(resonators, outputs, quiet, stolen, time, costPrefix, grain, from, lo),
+				new ResonatorTask(resonators, outputs, quiet, stolen, time, costPrefix, grain, lo, to));
+	}
+
+	private void tickResonator(int i) {
+		Resonator res = resonators.get(i);
+		Block resOutput = outputs.get(i);
+
+		long start = System.nanoTime();
+		res.setOutput(resOutput);
+		res.tick();
+		time[i] = System.nanoTime() - start;
+
+		quiet[i] = (res.isQuiet() && !res.isInContact()) || stolen[i];
+		if (quiet[i])
+			resOutput.fadeout(); // Fade over one block to smooth out stop-glitch.
+	}
+}
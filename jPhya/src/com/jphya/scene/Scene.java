@@ -1,720 +1,1223 @@
-/*
-Copyright (C) 2001, Dylan Menzies
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.scene;
-
-import java.nio.FloatBuffer;
-import java.util.ArrayList;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.ReentrantLock;
-
-import com.jphya.audio.AudioOutputStream;
-import com.jphya.contact.Contact;
-import com.jphya.contact.ContactGenerator;
-import com.jphya.impact.Impact;
-import com.jphya.impact.ImpactGenerator;
-import com.jphya.resonator.Resonator;
-import com.jphya.signal.Block;
-import com.jphya.signal.Limiter;
-import com.jphya.surface.Surface;
-
-
-public class Scene extends AbstractScene {
-
-	//private float framesPerSecond = 44100;// change later
-	private int nFrames = Block.INIT_NBLOCKFRAMES;
-	private int nMaxFrames=Block.INIT_NBLOCKFRAMES ;
-	
-
-	private Block _output = null;
-	private Block _tempBlock = null;
-
-	public static int _maxTimeCost = 100000;
-	static int _timeCost = 0;
-	
-	private MultipleOutputCallback _multipleOutputCallback = null;
-
-	private int maxResonators = 128;
-
-	public float getMaxResonators() {
-		return maxResonators;
-	}
-
-	public void setMaxResonators(int maxResonators) {
-		this.maxResonators = maxResonators;
-	}
-
-
-	private ReentrantLock criticalSection = new ReentrantLock();
-
-	public MonoCallback _monoCallback = null;
-	public Limiter limiter = null;
-	
-	public Limiter getLimiter() {
-		return limiter;
-	}
-
-	public void setLimiter(Limiter limiter) {
-		this.limiter = limiter;
-	}
-
-
-	private final AudioOutputStream outputStream;
-
-	public AudioOutputStream getOutputStream() {
-		return outputStream;
-	}
-
-	public Scene(AudioOutputStream outputStream) {
-		this(outputStream,(Block.INIT_NBLOCKFRAMES * outputStream.getSampleRate())/44100);
-	}
-
-	public Scene(AudioOutputStream outputStream, int blockSize) {
-		this.outputStream = outputStream;
-		this.nFrames = blockSize;
-		this.nMaxFrames = blockSize;
-		init();
-
-	}
-	public int getNMaxFrames() {
-		return nMaxFrames;
-	}
-
-	public void setNMaxFrames(int maxFrames) {
-		nMaxFrames = maxFrames;
-	}
-
-	public int getNFrames() {
-		return nFrames;
-	}
-
-	public void setNFrames(int frames) {
-		nFrames = frames;
-	}
-
-	/*public void _audioThread() {
-		Block output;
-		while (audioThreadIsOn) {
-			// EnterCriticalSection(_critSec); // Don't use paLock() because the
-			criticalSection.lock(); // locked flag is just for use// by main
-			// thread.
-			try {
-				output = Tick();
-			} finally {
-				criticalSection.unlock();
-			}
-			// LeaveCriticalSection(_critSec);
-
-			if (_limiter != null)
-				_limiter.tick(output);
-
-			// Allow the user to pass audio generated by Tick() to their own
-			// output stream.
-			if (_monoCallback != null)
-				_monoCallback.call(output.getStartBytes());
-
-			if (outputStreamIsOpen)
-				outputStream
-						.writeSamples(output.getStartBytes(), getNFrames());
-		}
-		// Thread terminates on exit.
-		System.out.printf("thread stops\n");
-		// return 0;
-	}
-*/
-	// 
-
-	/**
-	 * Convenience method.
-	 * Pass limiter time parameters. Zeros remove limiter.
-	 */
-	public void setLimiter(float attackTime, float holdTime, float releaseTime) {
-		if(attackTime == 0 ||holdTime == 0 || releaseTime == 0)
-			setLimiter(null);
-		else
-			setLimiter(new Limiter(attackTime, holdTime,releaseTime,this));
-	}
-
-	private int init() {
-		
-		return tickInit();
-	}
-
-
-	
-	/**
-	 * Set a function to be called after each tick, with the audio data.
-	 * @param cb
-	 * @return
-	 */
-	public int setOutputCallback(MonoCallback cb) {
-		if (cb == null)
-			return -1;
-
-		_monoCallback = cb;
-		return 0;
-	}
-
-	/**
-	 * Generate the next sound sample
-	 * @return
-	 */
-	public FloatBuffer generate() {
-		Block output = tick();
-
-		if (output != null) {
-			 if (limiter!=null)
-				limiter.tick(output);
-			output.getStartBytes().rewind();
-			output.getStartBytes().limit(getNFrames()*(Float.SIZE/Byte.SIZE));
-			outputStream.writeSamples(output.getStartBytes(), getNFrames());
-		}
-
-		// Allow the user to pass audio generated by Tick() to their own output
-		// stream.
-		if (_monoCallback != null)
-			_monoCallback.call(output.getStartBytes());// pass in byte format,
-		// in case that is what
-		// they need
-
-		return output.getStart();
-	}
-
-	public boolean isLocked() {
-		return criticalSection.isHeldByCurrentThread();
-	}
-
-	// // Double threaded operation
-
-	public void lock() {
-
-	
-		criticalSection.lock();
-	
-	}
-
-	public boolean tryLock() {
-
-	
-		try {
-			return criticalSection.tryLock(1,TimeUnit.MILLISECONDS);
-		} catch (InterruptedException e) {
-
-		}
-		return false;
-	}
-	
-	public void unlock() {
-		// assert(("Not locked.", isLocked() == true));
-		criticalSection.unlock();
-
-	}
-
-	/** 
-	* The time cost must be increased when tick starts using an object,
-	* and decremented when tick stops using it.
-	* ! It would be better if _timeCost were a static part of a class inherited
-	* by costing objects,
-	* ! so that the activate / deactivate methods encapsulate load management,
-	* ! and probably block pull/push as well.
-	*/
-	int paSetMaxTimeCost(int c) {
-		_maxTimeCost = c;
-		return 0;
-	}
-
-	public int setMultipleOutputCallback(MultipleOutputCallback cb) {
-		_multipleOutputCallback = cb;
-		return 0;
-	}
-
-	/**
-	 * Creation of blocks delayed until after user sets block size.
-	 * @return
-	 */
-	private int tickInit() {
-		if (_tempBlock == null)
-			_tempBlock = Block.newBlock(this);
-		else
-			return -1;
-		if (_output == null)
-			_output = Block.newBlock(this);
-		else
-			return -1;
-		return 0;
-	}
-
-	public boolean _tryActivateResIfInactive(Resonator res) {
-		if (!res.isActive()) {
-			int newCost;
-			if ((newCost = _timeCost + res.getTimeCost()) <= _maxTimeCost) {
-				_timeCost = newCost;
-				res.setInput(Block.newBlock(this));
-				// assert(("Block pool empty.", res.getInput()));
-				res.getInput().zero(); // This resonator won't have been zeroed
-				// at the start of paTick()
-				res.resetContactDamping();
-				res.activate();
-				_tickResonators.add(res);
-				return true;
-			} else
-				return false;
-		} else
-			return true;
-	}
-
-	private final ArrayList<Contact> _tickContacts = new ArrayList<Contact>();
-	private final ArrayList<Impact> _tickImpacts = new ArrayList<Impact>();
-	private final ArrayList<Resonator> _tickResonators = new ArrayList<Resonator>();
-	public Block tick() {
-		long curTime = System.nanoTime();
-		float maxTime = (( 1000000000f * (((float) this.getNFrames())/this.getFPS())));
-		long timePeriodConcacts=  (long) (maxTime*0.300f);
-		long timePeriodImpacts=  (long) (maxTime*0.40f);
-		long timePeriodResonators=  (long) (maxTime*0.85f);
-		
-
-	//	if(tryLock()){
-		lock();
-			try{
-				/*
-				 * Copy these to private lists for this method, so that the scene can be updated in a separate thread 
-				 * without blocking for the sound to finish being processed.
-				 */
-				_tickContacts.clear();
-				_tickContacts.addAll(super.getActiveContacts());
-				
-				_tickImpacts.clear();
-				_tickImpacts.addAll(super.getActiveImpacts());
-				
-				_tickResonators.clear();
-				_tickResonators.addAll(super.getActiveResonators());
-			}finally{
-				unlock();
-			}
-		
-		
-		//	updateScene();
-		/*}finally{
-			unlock();
-		}*/
-		// Overview:
-		// Clear resonator inputs.
-		// Tick contact generators where not quiet, add to resonator inputs.
-		// (wake up affected resonators that were previously quiet.)
-		// (Free up resources used by contacts that have been marked for
-		// deletion.)
-		// Tick resonators.
-
-		// // Clear Res inputs.
-
-		// Resonator res;
-		// Resonator.activeResList.firstMember();
-		// Iterator<Resonator> resList = Resonator.activeResList.getObjects();
-		// while ((res = Resonator.activeResList.getNextMember()) != null) {
-		for (Resonator res : _tickResonators) {
-			res.getInput().zero();
-			res.resetContactDamping();
-			res.clearInContact();
-		}
-
-		// // Clear main output.
-		// assert(("Main output not set. Try paInit ?", _output));
-		_output.zero();
-		
-		//the initial sounds of impacts should be preserved.
-		// // Tick contacts.
-
-		// Contact c;
-		
-		// Contact.pool.firstActiveObject();
-		// while ((c = Contact.pool.getNextActiveObject()) != null) {
-		//Iterator<Contact> cit = getActiveContacts().iterator();
-		// for(Impact im: Impact.pool.getObjects())
-		//while (cit.hasNext())
-		
-
-		long maxTimeContacts = curTime + timePeriodConcacts;//dont let processing take more than 85% of actual play time
-		int conNum = 0;
-		for(Contact c: _tickContacts)
-		{
-			//how could c possibly be null?
-			//Contact c = cit.next();
-			if (c.isReady()) {
-				// And generate surface excitations from valid surfaces.
-	/*			if(conNum++ % 4 == 0)
-				{
-				 if(System.nanoTime()>maxTimeContacts)
-				 {
-					// System.out.println(timePeriodConcacts + " contact " + _tickContacts.size() + "\t" + _tickImpacts.size());
-					 break;
-				 }
-				}*/
-				Block surfaceOutput = _tempBlock;
-				Resonator res1 = c.getResonator1();
-				Resonator res2 = c.getResonator2();
-				ContactGenerator gen1 = c.getContactGen1();
-				ContactGenerator gen2 = c.getContactGen2();
-				Surface surface1 = c.getSurface1();
-				Surface surface2 = c.getSurface2();
-
-				// Contact damping multiplicative 'accumulator'
-				float contactDamping = (float) 1.0;
-
-				if (res1 != null)
-					res1.setInContact();
-				if (res2 != null)
-					res2.setInContact();
-
-				if (gen1 != null) {
-					// If a body is disabled it will stop generating contact
-					// sound immediately.
-					// (Valid contactGen implies a valid body)
-					if (c.getBody1().isEnabled()) {
-						contactDamping *= c.getSurface1().m_contactDamping;
-						gen1
-								.setSpeedBody1RelBody2(c.getDynamicData().speedBody1RelBody2);
-						gen1
-								.setSpeedContactRelBody(c.getDynamicData().speedContactRelBody1);
-						gen1.setContactForce(c.getDynamicData().contactForce);
-
-						// ( Otherwise we continue using previous data set. )
-
-						// Test that surface generates non-zero output.
-						// If it doesn't then we don't need to calculate it
-						// explicitly.
-						if (!gen1.isQuiet()) {
-							gen1.setOutput(surfaceOutput);
-							gen1.tick();
-							if (c.isFadeAndDelete())
-								surfaceOutput.fadeout();
-
-							// Direct output.
-							_output.addWithMultiply(surfaceOutput, c
-									.getSurface1ContactDirectGain());
-
-							if (res1 != null) {
-								if (_tryActivateResIfInactive(res1)) // If res
-									
-									// active
-									// , or
-									// can
-									// be
-									// made
-									// active
-									// .
-									// Direct addition onto resonator input:
-									res1.getInput().add(surfaceOutput);
-							}
-
-							if (res2 != null) {
-								if (_tryActivateResIfInactive(res2))
-								{	// Cross coupling to the other resonator.
-								
-									res2.getInput().addWithMultiply(
-											surfaceOutput,
-											c.getSurface1ContactToRes2Gain());
-								}
-							}
-						}
-					}
-				}
-
-				if (gen2 != null) {
-					// If a body is disabled it will stop generating contact
-					// sound immediately.
-					// (Valid contactGen implies a valid body)
-					if (c.getBody2().isEnabled()) {
-						contactDamping *= c.getSurface2().m_contactDamping;
-						gen2
-								.setSpeedBody1RelBody2(c.getDynamicData().speedBody1RelBody2);
-						gen2
-								.setSpeedContactRelBody(c.getDynamicData().speedContactRelBody2);
-						gen2.setContactForce(c.getDynamicData().contactForce);
-
-						if (!gen2.isQuiet()) {
-							gen2.setOutput(surfaceOutput);
-							gen2.tick();
-							if (c.isFadeAndDelete())
-								surfaceOutput.fadeout();
-
-							// Direct output.
-							_output.addWithMultiply(surfaceOutput, c
-									.getSurface2ContactDirectGain());
-
-							if (res2 != null) {
-								if (_tryActivateResIfInactive(res2))
-								{	
-									res2.getInput().add(surfaceOutput);
-								
-								}
-							}
-
-							if (res1 != null) {
-								if (_tryActivateResIfInactive(res1))
-								{	
-									res1.getInput().addWithMultiply(
-											surfaceOutput,
-											c.getSurface2ContactToRes1Gain());
-									
-								}
-							}
-
-						}
-					}
-				}
-
-				if (res1 != null)
-					res1.addContactDamping(contactDamping);
-				if (res2 != null)
-					res2.addContactDamping(contactDamping);
-
-				if (c.isFadeAndDelete()) {
-					//cit.remove();
-					Contact.deleteContact(c);
-				//	super.removeContact(c);
-					// Contact.deleteContact(c);
-				}
-
-			}
-		}
-
-		// // Tick impacts.
-
-		// Impact im = null;
-		long maxTimeImpacts = curTime + timePeriodImpacts;//dont let processing take more than 85% of actual play time
-
-		// Impact.pool.firstActiveObject();
-		// while ((im = Impact.pool.getNextActiveObject()) != null) {
-		//Iterator<Impact> it = getActiveImpacts().iterator();
-		int imNum = 0;
-		 for(Impact im: _tickImpacts)
-		 {
-		//while (it.hasNext()) { // If an impact is locked it cannot be ready -
-			// you only write params
-			// once.
-			//Impact im = it.next();
-			 if(imNum++ % 4 == 0)
-			 {
-				 //only check on every second one to reduce calls to System.nanoTime();
-				 if(System.nanoTime()>maxTimeImpacts)
-				 {
-					// System.out.println(timePeriodImpacts  + " impact "  + _tickContacts.size() + "\t" + _tickImpacts.size());
-					 break;
-				 }
-			 }
-			if (im.isReady()) {// the is ready function is faked.
-				// Pass impact data to the impact.
-				// And generate surface excitations from valid surfaces.
-
-				Block surfaceOutput = _tempBlock;
-				Resonator res1 = im.getResonator1();
-				Resonator res2 = im.getResonator2();
-				ImpactGenerator gen1 = im.getImpactGen1();
-				ImpactGenerator gen2 = im.getImpactGen2();
-				Surface surface1 = im.getSurface1();
-				Surface surface2 = im.getSurface2();
-
-				boolean impactHasFinished = true; // Will be false if either
-				// impact generator still
-				// makes sound.
-			
-				if (surface1 != null && gen1 != null) {
-
-					gen1
-							.setRelTangentSpeedAtImpact(im.getDynamicData().relTangentSpeedAtImpact);
-					gen1
-							.setRelNormalSpeedAtImpact(im.getDynamicData().relNormalSpeedAtImpact);
-					gen1.setImpactImpulse(im.getDynamicData().impactImpulse);
-
-					gen1.setOutput(surfaceOutput);
-					gen1.tick();
-
-					// Direct output. (mostly for testing)
-					_output.addWithMultiply(surfaceOutput, im
-							.getSurface1ImpactDirectGain());
-
-					if (res1 != null) {
-						if (_tryActivateResIfInactive(res1))
-						{	
-							res1.getInput().add(surfaceOutput);
-						
-						}
-					}
-
-					if (res2 != null) {
-						if (_tryActivateResIfInactive(res2))
-						{	
-							res2.getInput().addWithMultiply(surfaceOutput,
-									(float) im.getSurface1ImpactToRes2Gain());
-					
-						}
-					}
-
-					if (!gen1.isQuiet())
-						impactHasFinished = false;
-					else { // Shutdown this generator.
-						surface1.deleteImpactGen(im.getImpactGen1());
-						im.setSurface1(null);
-					}
-				}
-
-				if (surface2 != null && gen2 != null) {
-
-					gen2
-							.setRelTangentSpeedAtImpact(im.getDynamicData().relTangentSpeedAtImpact);
-					gen2
-							.setRelNormalSpeedAtImpact(im.getDynamicData().relNormalSpeedAtImpact);
-					gen2.setImpactImpulse(im.getDynamicData().impactImpulse);
-
-					gen2.setOutput(surfaceOutput);
-					gen2.tick();
-
-					// Direct output.
-					_output.addWithMultiply(surfaceOutput, im.getSurface2ImpactDirectGain());
-
-					if (res2 != null) {
-						if (_tryActivateResIfInactive(res2))
-						{
-							res2.getInput().add(surfaceOutput);
-							
-						}
-					}
-
-					if (res1 != null) {
-						if (_tryActivateResIfInactive(res1))
-						{
-							res1.getInput().addWithMultiply(surfaceOutput,	(float) im.getSurface2ImpactToRes1Gain());
-						
-						}
-					}
-
-					if (!gen2.isQuiet())
-						impactHasFinished = false;
-					else { // Shutdown this generator.
-						surface2.deleteImpactGen(im.getImpactGen2());
-						im.setSurface2(null);
-					}
-
-				}
-
-				// Delete the impact when both impact generators are off.
-				if (impactHasFinished) {
-				//	it.remove();
-					//super.removeImpact(im);
-					Impact.deleteImpact(im);
-					// Impact.pool.deleteActiveObject(im);
-				}
-
-			}
-		}
-
-		// // Tick resonators.
-
-			// Resonator.activeResList.firstMember();
-		Block resOutput = Block.newBlock(this); // Temp buffer
-		assert (resOutput != null);
-
-	//	Iterator<Resonator> rit = getActiveResonators().iterator();
-		// for(Impact im: Impact.pool.getObjects())
-		//while (rit.hasNext())
-		int resNum = 0;
-		long maxTimeResonators = curTime + timePeriodResonators;//dont let processing take more than 85% of actual play time
-
-		 for(Resonator res: _tickResonators)
-		{
-			if(resNum++ %4 == 0)
-			{
-				 //only check on every second one to reduce calls to System.nanoTime();
-				 if(System.nanoTime()>maxTimeResonators)
-				 {
-				//	 System.out.println(timePeriodResonators  + " " +   _tickContacts.size() + "\t" + _tickImpacts.size());
-					 break;
-				 }
-			 }
-		
-			
-		//	Resonator res = rit.next();
-			// for(Resonator res:Resonator.activeResList.getObjects())
-			// {
-			// while ((res = Resonator.activeResList.getNextMember()) != null) {
-			res.setOutput(resOutput);
-			res.tick();
-			
-			if (res.isQuiet() && !res.isInContact()) {
-				// ! Add a lower quiet level for contacts. This will prevent dsp
-				// resource being used
-				// ! when a contact is sitting without exciting resonators.
-				// ! Need to then fix gen.isQuiet() to not be always false.
-				resOutput.fadeout(); // Fade over one block to smooth out
-				// stop-glitch. Important.
-			//	rit.remove();
-				//super.removeResontaor(res);
-				//super.removeResontaor(res);
-				 res.deactivate();
-				_timeCost -= res.getTimeCost();
-				// ! Potential bug if cost of res changes while res activated.
-				// ! Would be better if load management was in res, with state
-				// record.
-				
-				//Block.deleteBlock(res.getM_input()); // Free input block to the
-				// pool.
-			}
-
-			if (_multipleOutputCallback != null)
-				_multipleOutputCallback.call(res, resOutput.getStartBytes());
-			else 
-				_output.add(resOutput);
-		}
-
-		Block.deleteBlock(resOutput);
-
-		return _output;
-	}
-
-	public int setMaxTimeCost(int c) {
-		_maxTimeCost = c;
-		return 0;
-	}
-
-	public float getFPS() {
-		return this.outputStream.getSampleRate();
-	}
-	
-	/**
-	 * Convenience method
-	 * @return
-	 */
-	public float getFPSFrames()
-	{
-		return this.getFPS()/((float)this.nFrames);
-	}
-
-	
-	
-
-
-
-}
+/*
+Copyright (C) 2001, Dylan Menzies
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.jphya.audio.AudioOutputStream;
+import com.jphya.body.Body;
+import com.jphya.contact.Contact;
+import com.jphya.contact.ContactGenerator;
+import com.jphya.impact.Impact;
+import com.jphya.impact.ImpactGenerator;
+import com.jphya.resonator.ModalBank;
+import com.jphya.resonator.ModalCoefficientCache;
+import com.jphya.resonator.Resonator;
+import com.jphya.signal.Block;
+import com.jphya.signal.BlockArena;
+import com.jphya.signal.Limiter;
+import com.jphya.signal.OutputBus;
+import com.jphya.signal.Resampler;
+
+
+public class Scene extends AbstractScene {
+
+	//private float framesPerSecond = 44100;// change later
+	private int nFrames = Block.INIT_NBLOCKFRAMES;
+	private int nMaxFrames=Block.INIT_NBLOCKFRAMES ;
+	
+
+	private Block _output = null;
+	private Block _tempBlock = null;
+
+	/**
+	 * Storage for the blocks used while rendering, so that none are allocated on the audio thread once it is warm.
+	 */
+	private final BlockArena _arena = new BlockArena(this);
+	private final ModalBank _modalBank = new ModalBank(this);
+	private final ModalCoefficientCache _modalCoefficients = new ModalCoefficientCache();
+
+	/**
+	 * Frames of the last tick's output that render() has handed out, of _carryEnd.
+	 */
+	private int _carryPos = 0;
+	private int _outputFrames = 0;
+	private int _carryEnd = 0;
+
+	/**
+	 * Measured time costs, used to admit resonators against the time available in a block.
+	 */
+	private final CostModel _costModel = new CostModel();
+	
+	private MultipleOutputCallback _multipleOutputCallback = null;
+
+	/**
+	 * Pool used to tick generators and resonators in parallel. Null for the default, serial, operation.
+	 */
+	private ForkJoinPool _parallelPool = null;
+
+	/**
+	 * Per-resonator scratch state for the parallel tick, grown as needed.
+	 */
+	private final ArrayList<Block> _resOutputs = new ArrayList<Block>();
+	private boolean[] _resQuiet = new boolean[0];
+	private long[] _resTime = new long[0];
+	private long[] _resCostPrefix = new long[0];
+
+	/**
+	 * Surface generator excitations queued for the current block, and their scratch outputs for the parallel tick.
+	 */
+	private final ArrayList<Excitation> _excitations = new ArrayList<Excitation>();
+	private int _nExcitations = 0;
+	private final ArrayList<Block> _excitationOutputs = new ArrayList<Block>();
+	private final ArrayList<Contact> _contactsToDelete = new ArrayList<Contact>();
+	private final ArrayList<Impact> _impactsToFinish = new ArrayList<Impact>();
+
+	public ForkJoinPool getParallelPool() {
+		return _parallelPool;
+	}
+
+	/**
+	 * Opt in to ticking surface generators and resonators in parallel on the given pool,
+	 * or pass null to tick them serially on the audio thread.
+	 * The pool is not shut down by the scene.
+	 */
+	public void setParallelPool(ForkJoinPool pool) {
+		_parallelPool = pool;
+	}
+
+	private int maxResonators = 128;
+
+	public float getMaxResonators() {
+		return maxResonators;
+	}
+
+	/**
+	 * Set the most resonators that may sound at once. When there are more, the lowest ranked
+	 * are faded out; see Body.setPriority().
+	 */
+	public void setMaxResonators(int maxResonators) {
+		this.maxResonators = maxResonators;
+	}
+	
+	private final VoiceManager _voiceManager = new VoiceManager(this);
+
+	private float detailLevel = 0f;
+
+	public float getDetailLevel() {
+		return detailLevel;
+	}
+
+	/**
+	 * Quality setting for level of detail. Resonators leave out the parts of their sound, such as the quieter
+	 * modes of a modal resonator, estimated to be below this level at the listener, so that distant and quiet
+	 * bodies cost less. Larger values save more cpu. 0 keeps full detail, and is the default.
+	 */
+	public void setDetailLevel(float detailLevel) {
+		this.detailLevel = detailLevel;
+	}
+
+	private float modeQuietLevel = 0f;
+	private float modeMaskLevel = 0f;
+
+	public float getModeQuietLevel() {
+		return modeQuietLevel;
+	}
+
+	/**
+	 * Envelope level below which a single mode of a modal resonator is left out while the resonator rings
+	 * without input, until new input wakes it. Applies to every modal resonator in the scene, as well as any
+	 * level set by ModalResonator.setModeQuietLevel(). Leaving out modes changes the output slightly, so this
+	 * is 0 (off) by default; ModalResonator.MODE_QUIET_FRACTION is a good place to start.
+	 * Modes above the Nyquist frequency are always left out, whatever this is.
+	 */
+	public void setModeQuietLevel(float modeQuietLevel) {
+		this.modeQuietLevel = modeQuietLevel;
+	}
+
+	public float getModeMaskLevel() {
+		return modeMaskLevel;
+	}
+
+	/**
+	 * Modes more than this fraction below their resonator's total level are left out as well, for every modal
+	 * resonator in the scene. 0 (off) by default; ModalResonator.MODE_MASK_LEVEL is a good place to start.
+	 */
+	public void setModeMaskLevel(float modeMaskLevel) {
+		this.modeMaskLevel = modeMaskLevel;
+	}
+
+	/**
+	 * False when rendering offline, so that no work is dropped or refused because of the wall clock.
+	 */
+	private boolean _realtime = true;
+
+	public boolean isRealtime() {
+		return _realtime;
+	}
+
+	/**
+	 * Pass false to render offline: the block deadlines and the measured time budget are ignored,
+	 * so the output depends only on the scene, however fast or slow the machine. maxResonators still applies.
+	 * Modal resonators also wait for changed coefficients, instead of having them calculated in the background.
+	 */
+	public void setRealtime(boolean realtime) {
+		_realtime = realtime;
+	}
+	private boolean[] _resStolen = new boolean[0];
+
+
+	private ReentrantLock criticalSection = new ReentrantLock();
+	
+	/**
+	 * The thread that last ticked the scene. Changes made on any other thread are queued.
+	 */
+	private volatile Thread _renderThread = null;
+	
+	private volatile SceneRenderer _renderer = null; // Renderer driving this scene, if any.
+
+	public MonoCallback _monoCallback = null;
+	public Limiter limiter = null;
+	
+	public Limiter getLimiter() {
+		return limiter;
+	}
+
+	/**
+	 * Set the limiter applied to the output. A multichannel scene needs a limiter with as many channels.
+	 */
+	public void setLimiter(Limiter limiter) {
+		this.limiter = limiter;
+	}
+
+
+	private final AudioOutputStream outputStream;
+	private final boolean heapBlocks;
+	private final int nChannels;
+
+	/**
+	 * Interleaved output of a multichannel scene, into which the resonators are mixed with their bodies' pan.
+	 * Null for a mono scene, which mixes into _output.
+	 */
+	private final OutputBus _bus;
+
+	/**
+	 * Converts the output to the stream's rate, if the scene renders at a different one. See setRenderRate().
+	 */
+	private Resampler _resampler = null;
+	private int renderRate = 0; // 0 to render at the stream's rate.
+
+	public AudioOutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	public Scene(AudioOutputStream outputStream) {
+		this(outputStream,(Block.INIT_NBLOCKFRAMES * outputStream.getSampleRate())/44100);
+	}
+
+	public Scene(AudioOutputStream outputStream, int blockSize) {
+		this(outputStream, blockSize, false);
+	}
+
+	/**
+	 * @param heapBlocks if true, the scene's blocks keep their samples in float arrays rather than direct buffers,
+	 * which the signal processing loops can index directly. Samples are copied to a direct buffer only when
+	 * they are written to the output stream or passed to a callback.
+	 */
+	public Scene(AudioOutputStream outputStream, int blockSize, boolean heapBlocks) {
+		this.outputStream = outputStream;
+		this.nFrames = blockSize;
+		this.nMaxFrames = blockSize;
+		this.heapBlocks = heapBlocks;
+		this.nChannels = outputStream == null ? 1 : outputStream.getChannels();
+		_bus = nChannels > 1 ? new OutputBus(this, nChannels) : null;
+		init();
+
+	}
+
+	/**
+	 * Return true if this scene's blocks are backed by float arrays. See {@link Block#getArray()}.
+	 */
+	public boolean isHeapBlocks() {
+		return heapBlocks;
+	}
+
+	public ModalBank getModalBank() {
+		return _modalBank;
+	}
+
+	/**
+	 * The coefficient sets shared by the scene's modal resonators.
+	 */
+	public ModalCoefficientCache getModalCoefficientCache() {
+		return _modalCoefficients;
+	}
+
+	/**
+	 * Stop the scene's background threads, such as the modal coefficient cache's worker. Call this once the
+	 * scene is finished with. A closed scene can still be ticked, but modal resonators then calculate changed
+	 * coefficients on the audio thread. The parallel pool, if any, belongs to the caller and is left running.
+	 */
+	public void close() {
+		_modalCoefficients.shutdown();
+	}
+
+	/**
+	 * The arena that the scene's rendering blocks come from. Generators may take scratch blocks from it
+	 * while they are ticked.
+	 */
+	public BlockArena getBlockArena() {
+		return _arena;
+	}
+
+	/**
+	 * The number of interleaved channels the scene renders, taken from its output stream.
+	 */
+	public int getNChannels() {
+		return nChannels;
+	}
+	public int getNMaxFrames() {
+		return nMaxFrames;
+	}
+
+	public void setNMaxFrames(int maxFrames) {
+		nMaxFrames = maxFrames;
+	}
+
+	public int getNFrames() {
+		return nFrames;
+	}
+
+	public void setNFrames(int frames) {
+		nFrames = frames;
+	}
+
+	/*public void _audioThread() {
+		Block output;
+		while (audioThreadIsOn) {
+			// EnterCriticalSection(_critSec); // Don't use paLock() because the
+			criticalSection.lock(); // locked flag is just for use// by main
+			// thread.
+			try {
+				output = Tick();
+			} finally {
+				criticalSection.unlock();
+			}
+			// LeaveCriticalSection(_critSec);
+
+			if (_limiter != null)
+				_limiter.tick(output);
+
+			// Allow the user to pass audio generated by Tick() to their own
+			// output stream.
+			if (_monoCallback != null)
+				_monoCallback.call(output.getStartBytes());
+
+			if (outputStreamIsOpen)
+				outputStream
+						.writeSamples(output.getStartBytes(), getNFrames());
+		}
+		// Thread terminates on exit.
+		System.out.printf("thread stops\n");
+		// return 0;
+	}
+*/
+	// 
+
+	/**
+	 * Convenience method.
+	 * Pass limiter time parameters. Zeros remove limiter.
+	 */
+	public void setLimiter(float attackTime, float holdTime, float releaseTime) {
+		if(attackTime == 0 ||holdTime == 0 || releaseTime == 0)
+			setLimiter(null);
+		else
+			setLimiter(new Limiter(attackTime, holdTime,releaseTime,this,nChannels));
+	}
+
+	private int init() {
+		
+		return tickInit();
+	}
+
+
+	
+	/**
+	 * Set a function to be called after each tick, with the audio data. Mono scenes only.
+	 * @param cb
+	 * @return
+	 */
+	public int setOutputCallback(MonoCallback cb) {
+		if (cb == null)
+			return -1;
+
+		_monoCallback = cb;
+		return 0;
+	}
+
+	/**
+	 * Generate the next sound sample
+	 * Tick the scene, and write its output to the stream. The samples written are returned. There are
+	 * getOutputFrames() of them, interleaved if the scene has several channels.
+	 * @return
+	 */
+	public FloatBuffer generate() {
+		int frames = tickOutput();
+		_outputFrames = frames;
+		_carryPos = _carryEnd; // Drop any frames render() had left over.
+
+		if (_resampler != null) {
+			outputStream.writeSamples(_resampler.getBytes(), frames);
+			callMonoCallback();
+			return _resampler.getSamples();
+		}
+		if (_bus != null) {
+			outputStream.writeSamples(_bus.getBytes(), frames);
+			return _bus.getSamples();
+		}
+		ByteBuffer bytes = _output.getStartBytes();
+		bytes.rewind();
+		bytes.limit(frames*(Float.SIZE/Byte.SIZE));
+		outputStream.writeSamples(bytes, frames);
+		callMonoCallback();
+		return _output.getStart();
+	}
+
+	/**
+	 * The number of frames the last generate() wrote. This is the block size, unless the scene renders at
+	 * its own rate, when it varies from block to block.
+	 */
+	public int getOutputFrames() {
+		return _outputFrames;
+	}
+
+	/**
+	 * Render exactly the given number of frames into dst, from its position on, for sinks that pull audio
+	 * such as a device callback. Whole blocks are ticked as needed, and the frames left over from the last
+	 * one are kept for the next call. The samples are copied straight from the scene's output block,
+	 * or its bus if it has several channels, in which case the frames are interleaved.
+	 * The output stream is not written, but the mono callback is called for each block ticked.
+	 * Use either this or generate() on a scene, not both.
+	 * @return the number of frames rendered
+	 */
+	public int render(FloatBuffer dst, int frames) {
+		if (dst.remaining() < frames * nChannels)
+			throw new BufferOverflowException();
+
+		int rendered = 0;
+		while (rendered < frames) {
+			if (_carryPos == _carryEnd) {
+				_carryEnd = tickOutput();
+				_carryPos = 0;
+				callMonoCallback();
+			}
+			int n = Math.min(frames - rendered, _carryEnd - _carryPos);
+			if (_resampler != null)
+				_resampler.copyTo(dst, _carryPos, n);
+			else if (_bus != null)
+				_bus.copyTo(dst, _carryPos, n);
+			else
+				_output.copyTo(dst, _carryPos, n);
+			_carryPos += n;
+			rendered += n;
+		}
+		return rendered;
+	}
+
+	/**
+	 * Tick the scene and finish its output. The output is limited, and then, if the scene renders at its own
+	 * rate, resampled to the stream's rate.
+	 * Returns the number of frames of output.
+	 */
+	private int tickOutput() {
+		Block output = tick();
+		int frames = getNFrames();
+
+		if (limiter != null) {
+			if (_bus == null)
+				limiter.tick(output);
+			else
+				limiter.tick(_bus);
+		}
+		if (_resampler == null)
+			return frames;
+		FloatBuffer in = _resampler.getInput(frames);
+		if (_bus != null)
+			_bus.copyTo(in, 0, frames);
+		else
+			output.copyTo(in, 0, frames);
+		return _resampler.process(frames);
+	}
+
+	/**
+	 * Pass a mono scene's block, at the scene's rate, to the mono callback. generate() calls it after writing
+	 * the stream, as it always has.
+	 */
+	private void callMonoCallback() {
+		// Allow the user to pass audio generated by Tick() to their own output
+		// stream.
+		if (_monoCallback != null && _bus == null) {
+			ByteBuffer bytes = _output.getStartBytes();
+			bytes.rewind();
+			bytes.limit(getNFrames()*(Float.SIZE/Byte.SIZE));
+			_monoCallback.call(bytes);// pass in byte format,
+			// in case that is what
+			// they need
+		}
+	}
+
+	public boolean isLocked() {
+		return criticalSection.isHeldByCurrentThread();
+	}
+
+	// // Double threaded operation
+
+	public void lock() {
+
+	
+		criticalSection.lock();
+	
+	}
+
+	public boolean tryLock() {
+
+	
+		try {
+			return criticalSection.tryLock(1,TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+
+		}
+		return false;
+	}
+	
+	public void unlock() {
+		// assert(("Not locked.", isLocked() == true));
+		criticalSection.unlock();
+
+	}
+	
+	@Override
+	protected boolean tryLockNow() {
+		return criticalSection.tryLock();
+	}
+	
+	public boolean isRenderThread() {
+		return Thread.currentThread() == _renderThread;
+	}
+
+	/**
+	 * True once the scene has been ticked. From then on, objects the audio thread may be using should be
+	 * changed on the audio thread, or through invokeLater().
+	 */
+	public boolean hasRenderThread() {
+		return _renderThread != null;
+	}
+
+	/**
+	 * Wake the scene's renderer, if it is idle, to apply the change.
+	 */
+	@Override
+	protected void commandQueued() {
+		SceneRenderer renderer = _renderer;
+		if (renderer != null)
+			renderer.wake();
+	}
+
+	void setRenderer(SceneRenderer renderer) {
+		_renderer = renderer;
+	}
+
+	/**
+	 * Return true if the scene has nothing to play: no contacts, impacts or active resonators, and no queued changes.
+	 * Only meaningful on the audio thread.
+	 */
+	public boolean isIdle() {
+		return contacts.isEmpty() && impacts.isEmpty() && resonators.isEmpty() && !hasCommands();
+	}
+
+	public int setMultipleOutputCallback(MultipleOutputCallback cb) {
+		_multipleOutputCallback = cb;
+		return 0;
+	}
+
+	/**
+	 * Creation of blocks delayed until after user sets block size.
+	 * @return
+	 */
+	private int tickInit() {
+		if (_tempBlock == null)
+			_tempBlock = _arena.acquire();
+		else
+			return -1;
+		if (_output == null)
+			_output = _arena.acquire();
+		else
+			return -1;
+		return 0;
+	}
+
+	public boolean _tryActivateResIfInactive(Resonator res) {
+		return _tryActivateResIfInactive(res, null, 0f);
+	}
+
+	/**
+	 * Activate the resonator, if it is inactive and the voice manager and cost model allow it.
+	 * excitation is the block about to be mixed into its input, scaled by gain, which the voice manager
+	 * weighs against the active voices once the voice limit is reached. It may be null if not known.
+	 */
+	public boolean _tryActivateResIfInactive(Resonator res, Block excitation, float gain) {
+		if (!res.isActive()) {
+			if (!_voiceManager.admit(res, excitation, gain, _tickResonators))
+				return false;
+			if (!_realtime || _costModel.admit(res, getBlockTime(), getThreads())) {
+				// The input is returned to the arena when the scene deactivates the resonator.
+				// One deactivated by other means keeps its input, which is reused here.
+				if (res.getInput() == null)
+					res.setInput(_arena.acquire());
+				res.getInput().zero(); // This resonator won't have been zeroed
+				// at the start of paTick()
+				if (!res.isInContact())
+					res.resetContactDamping(); // Otherwise it was reset when the contact first touched it this block.
+				if (res.getBody() != null)
+					res.getBody().setPreviousPan(res.getBody().getPan()); // Start where it is, rather than sweep.
+				res.activate();
+				_tickResonators.add(res);
+				return true;
+			} else
+				return false;
+		} else
+			return true;
+	}
+
+	private final ArrayList<Contact> _tickContacts = new ArrayList<Contact>();
+	private final ArrayList<Impact> _tickImpacts = new ArrayList<Impact>();
+	private final ArrayList<Resonator> _tickResonators = new ArrayList<Resonator>();
+	private final ArrayList<Resonator> _touchedInactive = new ArrayList<Resonator>(); // Inactive resonators in contact this block.
+	private int _tickEpoch = -1; // Membership epoch the tick lists were copied at.
+	public Block tick() {
+		long curTime = System.nanoTime();
+		float maxTime = (( 1000000000f * (((float) this.getNFrames())/this.getFPS())));
+		long timePeriodConcacts=  (long) (maxTime*0.300f);
+		long timePeriodImpacts=  (long) (maxTime*0.40f);
+		long timePeriodResonators=  (long) (maxTime*0.85f);
+		
+		_renderThread = Thread.currentThread();
+		_arena.reset(); // Scratch blocks last until the end of the tick that took them.
+	//	if(tryLock()){
+		// Apply changes queued by other threads since the last tick. The scene is not locked to do so.
+		drainCommands();
+		/*
+		 * Copy these to private lists for this method, so that the scene can be updated in a separate thread 
+		 * without blocking for the sound to finish being processed.
+		 * Only the audio thread changes the scene's membership, so the copies are only rebuilt when that has
+		 * happened, and no lock is needed to read the lists.
+		 */
+		int epoch = getMembershipEpoch();
+		if (epoch != _tickEpoch) {
+			_tickEpoch = epoch;
+			
+			_tickContacts.clear();
+			for (int i = 0; i < contacts.size(); i++)
+				_tickContacts.add(contacts.get(i));
+			
+			_tickImpacts.clear();
+			for (int i = 0; i < impacts.size(); i++)
+				_tickImpacts.add(impacts.get(i));
+			
+			_tickResonators.clear();
+			for (int i = 0; i < resonators.size(); i++)
+				_tickResonators.add(resonators.get(i));
+		}
+		_costModel.beginBlock(_tickResonators);
+		
+		//	updateScene();
+		/*}finally{
+			unlock();
+		}*/
+		// Overview:
+		// Clear resonator inputs.
+		// Tick contact generators where not quiet, add to resonator inputs.
+		// (wake up affected resonators that were previously quiet.)
+		// (Free up resources used by contacts that have been marked for
+		// deletion.)
+		// Tick resonators.
+
+		// // Clear Res inputs.
+
+		// Resonator res;
+		// Resonator.activeResList.firstMember();
+		// Iterator<Resonator> resList = Resonator.activeResList.getObjects();
+		// while ((res = Resonator.activeResList.getNextMember()) != null) {
+		for (Resonator res : _tickResonators) {
+			res.getInput().zero();
+			res.resetContactDamping();
+			res.clearInContact();
+		}
+
+		// // Clear main output.
+		// assert(("Main output not set. Try paInit ?", _output));
+		_output.zero();
+		if (_bus != null)
+			_bus.zero();
+		
+		//the initial sounds of impacts should be preserved.
+		// // Tick contacts.
+
+		// Each contact and impact is first prepared in list order, which makes the resonator
+		// activation decisions, then its surface generators are ticked and mixed into the
+		// resonator inputs and the main output in that same order.
+		// In parallel mode all the generators of the block are ticked together on the pool,
+		// before the mix.
+		boolean parallel = _parallelPool != null;
+
+		for (Contact c : _tickContacts) {
+			if (c.isReady()) {
+				prepareContact(c);
+				if (!parallel)
+					runExcitations();
+			}
+		}
+
+		// // Tick impacts.
+
+		long maxTimeImpacts = curTime + timePeriodImpacts;//dont let processing take more than 85% of actual play time
+		// In parallel mode the queued excitations are run at each check, a few per worker at a time,
+		// so that their time counts against the deadline just as it does in serial mode.
+		int checkEvery = parallel ? 4 * getThreads() : 4;
+		int imNum = 0;
+		for (Impact im : _tickImpacts) {
+			if (_realtime && imNum++ % checkEvery == 0) {
+				//only check on every fourth one to reduce calls to System.nanoTime();
+				if (parallel)
+					runExcitations();
+				if(System.nanoTime()>maxTimeImpacts)
+					break;
+			}
+			if (im.isReady()) {// the is ready function is faked.
+				prepareImpact(im);
+				if (!parallel)
+					runExcitations();
+			}
+		}
+
+		if (parallel)
+			runExcitations();
+
+		// // Tick resonators.
+
+		// Choose the voices to fade out, if there are more than allowed.
+		if (_resStolen.length < _tickResonators.size())
+			_resStolen = new boolean[_tickResonators.size()];
+		_voiceManager.steal(_tickResonators, _resStolen);
+
+		// Level of detail for the block, from each resonator's level at the listener.
+		for (Resonator res : _tickResonators)
+			res.chooseDetail(detailLevel > 0 ? VoiceManager.audibilityOf(res) : 0f, detailLevel);
+
+		if (_parallelPool != null && _tickResonators.size() > 1)
+			tickResonatorsParallel(curTime + timePeriodResonators);
+		else
+			tickResonators(curTime + timePeriodResonators);
+
+		// The direct sound is not placed.
+		if (_bus != null)
+			_bus.addPanned(_output, 0f, 0f);
+
+		for (int i = 0; i < _touchedInactive.size(); i++) {
+			Resonator res = _touchedInactive.get(i);
+			if (!res.isActive()) {
+				res.clearInContact();
+				res.resetContactDamping();
+			}
+		}
+		_touchedInactive.clear();
+
+		publishLists();
+		return _output;
+	}
+
+	/**
+	 * Pass contact data to the contact generators, and queue an excitation for each
+	 * generator that is not quiet.
+	 */
+	private void prepareContact(Contact c) {
+		Resonator res1 = c.getResonator1();
+		Resonator res2 = c.getResonator2();
+		ContactGenerator gen1 = c.getContactGen1();
+		ContactGenerator gen2 = c.getContactGen2();
+
+		// Contact damping multiplicative 'accumulator'
+		float contactDamping = (float) 1.0;
+
+		if (res1 != null)
+			touch(res1);
+		if (res2 != null)
+			touch(res2);
+
+		if (gen1 != null) {
+			// If a body is disabled it will stop generating contact
+			// sound immediately.
+			// (Valid contactGen implies a valid body)
+			if (c.getBody1().isEnabled()) {
+				contactDamping *= c.getSurface1().m_contactDamping;
+				gen1.setSpeedBody1RelBody2(c.getDynamicData().speedBody1RelBody2);
+				gen1.setSpeedContactRelBody(c.getDynamicData().speedContactRelBody1);
+				gen1.setContactForce(c.getDynamicData().contactForce);
+
+				// ( Otherwise we continue using previous data set. )
+
+				// Test that surface generates non-zero output.
+				// If it doesn't then we don't need to calculate it
+				// explicitly.
+				if (!gen1.isQuiet()) {
+					Excitation e = nextExcitation();
+					e.contactGen = gen1;
+					e.fadeout = c.isFadeAndDelete();
+					e.directGain = c.getSurface1ContactDirectGain();
+					// Direct addition onto resonator input, if res active, or can be made active.
+					e.res = res1;
+					// Cross coupling to the other resonator.
+					e.otherRes = res2;
+					e.otherResGain = c.getSurface1ContactToRes2Gain();
+				}
+			}
+		}
+
+		if (gen2 != null) {
+			if (c.getBody2().isEnabled()) {
+				contactDamping *= c.getSurface2().m_contactDamping;
+				gen2.setSpeedBody1RelBody2(c.getDynamicData().speedBody1RelBody2);
+				gen2.setSpeedContactRelBody(c.getDynamicData().speedContactRelBody2);
+				gen2.setContactForce(c.getDynamicData().contactForce);
+
+				if (!gen2.isQuiet()) {
+					Excitation e = nextExcitation();
+					e.contactGen = gen2;
+					e.fadeout = c.isFadeAndDelete();
+					e.directGain = c.getSurface2ContactDirectGain();
+					e.res = res2;
+					e.otherRes = res1;
+					e.otherResGain = c.getSurface2ContactToRes1Gain();
+				}
+			}
+		}
+
+		if (res1 != null)
+			res1.addContactDamping(contactDamping);
+		if (res2 != null)
+			res2.addContactDamping(contactDamping);
+
+		if (c.isFadeAndDelete())
+			_contactsToDelete.add(c);
+	}
+
+	/**
+	 * Pass impact data to the impact generators, and queue an excitation for each.
+	 */
+	private void prepareImpact(Impact im) {
+		Resonator res1 = im.getResonator1();
+		Resonator res2 = im.getResonator2();
+		ImpactGenerator gen1 = im.getImpactGen1();
+		ImpactGenerator gen2 = im.getImpactGen2();
+
+		if (im.getSurface1() != null && gen1 != null) {
+			gen1.setRelTangentSpeedAtImpact(im.getDynamicData().relTangentSpeedAtImpact);
+			gen1.setRelNormalSpeedAtImpact(im.getDynamicData().relNormalSpeedAtImpact);
+			gen1.setImpactImpulse(im.getDynamicData().impactImpulse);
+
+			Excitation e = nextExcitation();
+			e.impactGen = gen1;
+			e.impact = im;
+			e.side = 1;
+			// Direct output. (mostly for testing)
+			e.directGain = im.getSurface1ImpactDirectGain();
+			e.res = res1;
+			e.otherRes = res2;
+			e.otherResGain = im.getSurface1ImpactToRes2Gain();
+		}
+
+		if (im.getSurface2() != null && gen2 != null) {
+			gen2.setRelTangentSpeedAtImpact(im.getDynamicData().relTangentSpeedAtImpact);
+			gen2.setRelNormalSpeedAtImpact(im.getDynamicData().relNormalSpeedAtImpact);
+			gen2.setImpactImpulse(im.getDynamicData().impactImpulse);
+
+			Excitation e = nextExcitation();
+			e.impactGen = gen2;
+			e.impact = im;
+			e.side = 2;
+			e.directGain = im.getSurface2ImpactDirectGain();
+			e.res = res2;
+			e.otherRes = res1;
+			e.otherResGain = im.getSurface2ImpactToRes1Gain();
+		}
+
+		_impactsToFinish.add(im);
+	}
+
+	/**
+	 * Mark a resonator as in contact for the block. An inactive one has not had its contact state reset at
+	 * the start of the tick, so it is remembered, and reset at the end of the block if it is still inactive.
+	 */
+	private void touch(Resonator res) {
+		if (!res.isActive() && !res.isInContact())
+			_touchedInactive.add(res);
+		res.setInContact();
+	}
+
+	private Excitation nextExcitation() {
+		if (_nExcitations == _excitations.size())
+			_excitations.add(new Excitation());
+		return _excitations.get(_nExcitations++);
+	}
+
+	/**
+	 * Tick the queued excitations and mix them, in queue order, into the resonator inputs and main output.
+	 * Then shut down quiet impact generators, and delete finished contacts and impacts.
+	 */
+	private void runExcitations() {
+		if (_parallelPool != null && _nExcitations > 1) {
+			while (_excitationOutputs.size() < _nExcitations)
+				_excitationOutputs.add(_arena.acquire());
+			for (int i = 0; i < _nExcitations; i++)
+				_excitations.get(i).output = _excitationOutputs.get(i);
+
+			int grain = _nExcitations / (_parallelPool.getParallelism() * 4);
+			_parallelPool.invoke(new ExcitationTask(_excitations, grain, 0, _nExcitations));
+
+			for (int i = 0; i < _nExcitations; i++)
+				mixExcitation(_excitations.get(i));
+		} else {
+			// One at a time, so that all the generators can share the temporary block.
+			for (int i = 0; i < _nExcitations; i++) {
+				Excitation e = _excitations.get(i);
+				e.output = _tempBlock;
+				e.tick();
+				mixExcitation(e);
+			}
+		}
+		_nExcitations = 0;
+
+		for (Contact c : _contactsToDelete)
+			Contact.deleteContact(c);
+		_contactsToDelete.clear();
+
+		// Delete the impact when both impact generators are off.
+		for (Impact im : _impactsToFinish) {
+			if ((im.getSurface1() == null || im.getImpactGen1() == null)
+					&& (im.getSurface2() == null || im.getImpactGen2() == null))
+				Impact.deleteImpact(im);
+		}
+		_impactsToFinish.clear();
+	}
+
+	private void mixExcitation(Excitation e) {
+		Block surfaceOutput = e.output;
+
+		// Resonators are activated here, in queue order, once the generator's output is known,
+		// so that the voice manager can weigh it against the active voices.
+		boolean res = e.res != null && _tryActivateResIfInactive(e.res, surfaceOutput, 1f);
+		boolean otherRes = e.otherRes != null && _tryActivateResIfInactive(e.otherRes, surfaceOutput, e.otherResGain);
+
+		if (e.contactGen != null)
+			_costModel.sampleGenerator(e.contactGen, e.time);
+		else
+			_costModel.sampleGenerator(e.impactGen, e.time);
+
+		// Direct output.
+		_output.addWithMultiply(surfaceOutput, e.directGain);
+
+		if (res)
+			e.res.getInput().add(surfaceOutput);
+		if (otherRes)
+			e.otherRes.getInput().addWithMultiply(surfaceOutput, e.otherResGain);
+
+		if (e.impact != null && e.impactGen.isQuiet()) {
+			// Shutdown this generator.
+			if (e.side == 1) {
+				e.impact.getSurface1().deleteImpactGen(e.impactGen);
+				e.impact.setSurface1(null);
+			} else {
+				e.impact.getSurface2().deleteImpactGen(e.impactGen);
+				e.impact.setSurface2(null);
+			}
+		}
+
+		e.clear();
+	}
+
+	/**
+	 * Tick the resonators one after the other on the calling thread, mixing each into the main output.
+	 * If the block deadline passes, the voice manager sheds voices from the next block.
+	 * The modal resonators are ticked first, all together, by the ModalBank.
+	 */
+	private void tickResonators(long maxTimeResonators) {
+
+			// Resonator.activeResList.firstMember();
+		Block resOutput = _arena.scratch(); // Temp buffer
+		assert (resOutput != null);
+
+		// Tick the modal resonators together. Each one's tick() below then picks up its output.
+		_modalBank.tick();
+
+	//	Iterator<Resonator> rit = getActiveResonators().iterator();
+		// for(Impact im: Impact.pool.getObjects())
+		//while (rit.hasNext())
+		int resNum = 0;
+		boolean overran = false;
+
+		 for(Resonator res: _tickResonators)
+		{
+			boolean stolen = _resStolen[resNum];
+			if(resNum++ %4 == 0 && _realtime && !overran)
+			{
+				 //only check on every second one to reduce calls to System.nanoTime();
+				 if(System.nanoTime()>maxTimeResonators)
+				 {
+				//	 System.out.println(timePeriodResonators  + " " +   _tickContacts.size() + "\t" + _tickImpacts.size());
+					 // Finish the block rather than freeze the remaining resonators mid-sound,
+					 // and have the voice manager fade out the lowest ranked ones from the next block.
+					 _voiceManager.overran(resNum - 1);
+					 overran = true;
+				 }
+			 }
+		
+			
+		//	Resonator res = rit.next();
+			// for(Resonator res:Resonator.activeResList.getObjects())
+			// {
+			// while ((res = Resonator.activeResList.getNextMember()) != null) {
+			long start = System.nanoTime();
+			res.setOutput(resOutput);
+			res.tick();
+			_costModel.sampleResonator(res, System.nanoTime() - start + _modalBank.getTimeShare(res));
+			
+			if ((res.isQuiet() && !res.isInContact()) || stolen) {
+				// ! Add a lower quiet level for contacts. This will prevent dsp
+				// resource being used
+				// ! when a contact is sitting without exciting resonators.
+				// ! Need to then fix gen.isQuiet() to not be always false.
+				resOutput.fadeout(); // Fade over one block to smooth out
+				// stop-glitch. Important.
+			//	rit.remove();
+				//super.removeResontaor(res);
+				//super.removeResontaor(res);
+				deactivate(res);
+			}
+
+			if (_multipleOutputCallback != null)
+				_multipleOutputCallback.call(res, resOutput.getStartBytes());
+			else 
+				mixResonator(res, resOutput);
+		}
+
+		if (!overran)
+			_voiceManager.inTime();
+	}
+
+	/**
+	 * Mix a resonator's output into the main output, or the bus with its body's pan.
+	 */
+	private void mixResonator(Resonator res, Block resOutput) {
+		if (_bus == null) {
+			_output.add(resOutput);
+			return;
+		}
+		Body body = res.getBody();
+		if (body == null) {
+			_bus.addPanned(resOutput, 0f, 0f);
+			return;
+		}
+		float pan = body.getPan();
+		_bus.addPanned(resOutput, body.getPreviousPan(), pan);
+		body.setPreviousPan(pan);
+	}
+
+	/**
+	 * Deactivate a resonator, and free its input block to the arena.
+	 */
+	private void deactivate(Resonator res) {
+		res.deactivate();
+		res.clearInContact();
+		res.resetContactDamping();
+		_arena.release(res.getInput());
+		res.setInput(null);
+	}
+
+	/**
+	 * Tick the resonators on the parallel pool.
+	 * Each resonator renders into its own output block, split across the workers by time cost,
+	 * and the blocks are then mixed into the main output in list order on this thread. So the output
+	 * is the same as the serial tick, whatever the number of threads.
+	 * Quiet resonators are faded by the workers, but deactivated here, along with the output callback.
+	 * The workers can't stop part way through, so if the block deadline passes the block is finished, and the
+	 * voice manager is told how many resonators would have fitted in time, as in tickResonators().
+	 * The ModalBank is not used here; each modal resonator ticks its own modes on its worker.
+	 */
+	private void tickResonatorsParallel(long maxTimeResonators) {
+		int nRes = _tickResonators.size();
+
+		while (_resOutputs.size() < nRes)
+			_resOutputs.add(_arena.acquire());
+		if (_resQuiet.length < nRes) {
+			_resQuiet = new boolean[nRes];
+			_resTime = new long[nRes];
+		}
+		if (_resCostPrefix.length < nRes + 1)
+			_resCostPrefix = new long[nRes + 1];
+
+		_resCostPrefix[0] = 0;
+		for (int i = 0; i < nRes; i++)
+			_resCostPrefix[i + 1] = _resCostPrefix[i] + _costModel.estimate(_tickResonators.get(i));
+
+		// Aim for a few leaf tasks per worker, so that stealing can even out estimation errors.
+		long grain = _resCostPrefix[nRes] / (_parallelPool.getParallelism() * 4);
+
+		long start = System.nanoTime();
+		_parallelPool.invoke(new ResonatorTask(_tickResonators, _resOutputs, _resQuiet, _resStolen, _resTime, _resCostPrefix, grain, 0, nRes));
+		long end = System.nanoTime();
+
+		if (_realtime && end > maxTimeResonators) {
+			long budget = maxTimeResonators - start;
+			_voiceManager.overran(budget <= 0 ? 0 : (int) (nRes * budget / (end - start)));
+		} else
+			_voiceManager.inTime();
+
+		for (int i = 0; i < nRes; i++) {
+			Resonator res = _tickResonators.get(i);
+			Block resOutput = _resOutputs.get(i);
+
+			_costModel.sampleResonator(res, _resTime[i]);
+			if (_resQuiet[i])
+				deactivate(res);
+
+			if (_multipleOutputCallback != null)
+				_multipleOutputCallback.call(res, resOutput.getStartBytes());
+			else 
+				mixResonator(res, resOutput);
+		}
+	}
+
+	/**
+	 * @deprecated Time costs are now measured. Use setMaxLoad() to limit the time used.
+	 */
+	@Deprecated
+	public int setMaxTimeCost(int c) {
+		return 0;
+	}
+
+	public float getMaxLoad() {
+		return _costModel.getMaxLoad();
+	}
+
+	/**
+	 * Set the fraction of each block's duration that may be spent ticking the scene, per thread.
+	 * Resonators are not activated if their measured cost would take the scene over this.
+	 */
+	public void setMaxLoad(float maxLoad) {
+		_costModel.setMaxLoad(maxLoad);
+	}
+
+	/**
+	 * Return the fraction of the block's duration, per thread, committed to the current resonators and generators.
+	 */
+	public float getLoad() {
+		return _costModel.getLoad(getBlockTime(), getThreads());
+	}
+
+	/**
+	 * Return the measured average nanoseconds to tick a surface generator of the given class for one block,
+	 * or a resonator of the given class per unit of its getTimeCost(). Returns -1 if none has been ticked yet.
+	 */
+	public float getAverageCost(Class<?> type) {
+		return _costModel.getAverage(type);
+	}
+
+	/**
+	 * Duration of one block, in nanoseconds.
+	 */
+	private float getBlockTime() {
+		return 1000000000f * ((float) getNFrames()) / getFPS();
+	}
+
+	private int getThreads() {
+		return _parallelPool == null ? 1 : _parallelPool.getParallelism();
+	}
+
+	/**
+	 * The rate the scene synthesizes at. Everything that depends on the sample rate uses this.
+	 */
+	public float getFPS() {
+		if (renderRate > 0)
+			return renderRate;
+		return this.outputStream.getSampleRate();
+	}
+
+	/**
+	 * The rate of the output stream.
+	 */
+	public float getStreamRate() {
+		return this.outputStream.getSampleRate();
+	}
+
+	/**
+	 * Synthesize at the given rate, and resample the output to the stream's rate. A lower rate saves
+	 * time in proportion, mostly in the resonators; modes above its Nyquist frequency are dropped.
+	 * Pass 0 to render at the stream's rate.
+	 * Set this before creating the scene's resonators, surfaces and limiter, as they take their
+	 * coefficients from the rate. The rates must be in a simple ratio; see Resampler.
+	 */
+	public void setRenderRate(int rate) {
+		if (rate <= 0 || rate == outputStream.getSampleRate()) {
+			renderRate = 0;
+			_resampler = null;
+		} else {
+			_resampler = new Resampler(rate, outputStream.getSampleRate(), nChannels, nMaxFrames);
+			renderRate = rate;
+		}
+		_carryPos = _carryEnd = 0;
+	}
+	
+	/**
+	 * Convenience method
+	 * @return
+	 */
+	public float getFPSFrames()
+	{
+		return this.getFPS()/((float)this.nFrames);
+	}
+
+	
+	
+
+
+
+}
@@ -0,0 +1,53 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+/**
+ * The kinds of change to the scene that threads other than the audio thread queue in a CommandQueue.
+ * They are applied by the audio thread at the start of the next tick.
+ * @author Sam
+ *
+ */
+final class SceneCommand {
+	static final int ADD_CONTACT = 0;
+	static final int REMOVE_CONTACT = 1;
+	static final int DELETE_CONTACT = 2;
+	static final int ADD_RESONATOR = 3;
+	static final int REMOVE_RESONATOR = 4;
+	static final int ADD_IMPACT = 5;
+	static final int REMOVE_IMPACT = 6;
+	static final int DELETE_IMPACT = 7;
+	static final int ADD_BLOCK = 8;
+	static final int REMOVE_BLOCK = 9;
+	static final int ADD_CONTACT_GENERATOR = 10;
+	static final int REMOVE_CONTACT_GENERATOR = 11;
+	static final int ADD_IMPACT_GENERATOR = 12;
+	static final int REMOVE_IMPACT_GENERATOR = 13;
+	static final int RUN = 14;
+
+	private SceneCommand() {
+	}
+}
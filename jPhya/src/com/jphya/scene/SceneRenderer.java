@@ -0,0 +1,234 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.jphya.audio.AudioOutputStream;
+import com.jphya.audio.BufferedAudioOutputStream;
+
+/**
+ * Runs a scene on its own high priority thread, generating each block shortly before the
+ * output stream needs it.
+ * If the stream is a BufferedAudioOutputStream, blocks are paced to keep its queue at the target latency;
+ * otherwise they are paced by the clock, running the target latency ahead of real time.
+ * When the scene has nothing to play the thread parks, and is woken by the next change to the scene.
+ * A block that is not ready before the stream runs dry (or, when paced by the clock, before its play time)
+ * is counted as a deadline miss.
+ * @author Sam
+ *
+ */
+public class SceneRenderer {
+	
+	private static final int STOPPED = 0;
+	private static final int RUNNING = 1;
+	private static final int PAUSED = 2;
+	
+	private final Scene scene;
+	private volatile int state = STOPPED;
+	private volatile Thread thread = null;
+	
+	private int targetLatency; // frames
+	
+	private volatile long blocksRendered = 0;
+	private volatile long deadlineMisses = 0;
+	private volatile long lastBlockTime = 0;
+	
+	/**
+	 * Create a renderer aiming to keep 4 blocks queued ahead of playback.
+	 */
+	public SceneRenderer(Scene scene) {
+		this(scene, (int) (scene.getNFrames() * 4 * scene.getStreamRate() / scene.getFPS()));
+	}
+	
+	/**
+	 * @param scene
+	 * @param targetLatency The number of frames to keep queued ahead of playback, at the stream's rate.
+	 */
+	public SceneRenderer(Scene scene, int targetLatency) {
+		this.scene = scene;
+		this.targetLatency = targetLatency;
+	}
+	
+	public Scene getScene() {
+		return scene;
+	}
+	
+	public int getTargetLatency() {
+		return targetLatency;
+	}
+	
+	/**
+	 * Set the number of frames to keep queued ahead of playback. Takes effect from the next block.
+	 */
+	public void setTargetLatency(int targetLatency) {
+		this.targetLatency = targetLatency;
+	}
+	
+	/**
+	 * Start the render thread, or resume it if paused.
+	 */
+	public synchronized void start() {
+		if (state == PAUSED) {
+			resume();
+			return;
+		}
+		if (state == RUNNING)
+			return;
+		
+		state = RUNNING;
+		thread = new Thread(new Runnable() {
+			public void run() {
+				render();
+			}
+		}, "jPhya Render");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MAX_PRIORITY);
+		scene.setRenderer(this);
+		thread.start();
+	}
+	
+	/**
+	 * Stop the render thread, waiting for the current block to finish.
+	 * The output stream is not closed.
+	 */
+	public synchronized void stop() {
+		if (state == STOPPED)
+			return;
+		state = STOPPED;
+		Thread t = thread;
+		LockSupport.unpark(t);
+		boolean interrupted = false;
+		while (t.isAlive()) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+		scene.setRenderer(null);
+		thread = null;
+	}
+	
+	/**
+	 * Stop generating blocks, without stopping the thread. The scene keeps its state, and
+	 * changes to it are queued until resume().
+	 */
+	public synchronized void pause() {
+		if (state == RUNNING)
+			state = PAUSED;
+	}
+	
+	public synchronized void resume() {
+		if (state == PAUSED) {
+			state = RUNNING;
+			LockSupport.unpark(thread);
+		}
+	}
+	
+	public boolean isRunning() {
+		return state == RUNNING;
+	}
+	
+	public boolean isPaused() {
+		return state == PAUSED;
+	}
+	
+	public long getBlocksRendered() {
+		return blocksRendered;
+	}
+	
+	public long getDeadlineMisses() {
+		return deadlineMisses;
+	}
+	
+	/**
+	 * Return the time in nanoseconds taken to generate the last block.
+	 */
+	public long getLastBlockTime() {
+		return lastBlockTime;
+	}
+	
+	/**
+	 * Called by the scene when a change is queued, to wake the thread if it is idle.
+	 */
+	void wake() {
+		Thread t = thread;
+		if (t != null)
+			LockSupport.unpark(t);
+	}
+	
+	private void render() {
+		AudioOutputStream stream = scene.getOutputStream();
+		BufferedAudioOutputStream buffered = (stream instanceof BufferedAudioOutputStream) ? (BufferedAudioOutputStream) stream : null;
+		float framesPerNano = scene.getStreamRate() / 1000000000f; // Stream frames.
+		
+		long playTime = 0; // When the next block will be played, for clock pacing.
+		boolean restart = true; // Don't count the first block after starting, pausing or idling as late.
+		
+		while (state != STOPPED) {
+			if (state == PAUSED || scene.isIdle()) {
+				LockSupport.park(this);
+				restart = true;
+				continue;
+			}
+			
+			long blockTime = (long) (1000000000f * scene.getNFrames() / scene.getFPS());
+			if (buffered != null) {
+				int queued = buffered.getQueuedFrames();
+				if (queued == 0 && !restart)
+					deadlineMisses++;
+				if (queued > targetLatency) {
+					// Sleep until the queue is expected to be back down to the target.
+					LockSupport.parkNanos(this, (long) ((queued - targetLatency) / framesPerNano));
+					continue;
+				}
+			} else {
+				long now = System.nanoTime();
+				if (restart)
+					playTime = now;
+				long wait = playTime - (long) (targetLatency / framesPerNano) - now;
+				if (wait > 0) {
+					LockSupport.parkNanos(this, wait);
+					continue;
+				}
+				if (now > playTime && !restart) {
+					deadlineMisses++;
+					playTime = now;
+				}
+				playTime += blockTime;
+			}
+			restart = false;
+			
+			long start = System.nanoTime();
+			scene.generate();
+			lastBlockTime = System.nanoTime() - start;
+			blocksRendered++;
+		}
+	}
+}
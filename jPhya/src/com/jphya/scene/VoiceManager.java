@@ -0,0 +1,257 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.scene;
+
+import java.nio.FloatBuffer;
+import java.util.List;
+
+import com.jphya.body.Body;
+import com.jphya.resonator.Resonator;
+import com.jphya.signal.Block;
+
+/**
+ * Decides which resonators the scene keeps sounding when it has more than it allows.
+ * Voices are ranked by the priority of their body, then by their audible level: the resonator's estimated
+ * volume plus its input for this block, scaled by its body's distance model.
+ * The lowest ranked voices over the limit are stolen: faded out over one block and deactivated.
+ * Ties are broken by position in the scene, so the same scene always degrades the same way.
+ * @author Sam
+ *
+ */
+final class VoiceManager {
+	
+	private final Scene scene;
+	
+	/*
+	 * Further limit applied after a block overran its time, which recovers by one voice for each block
+	 * that finishes in time.
+	 */
+	private int overloadLimit = Integer.MAX_VALUE;
+	
+	private int[] order = new int[0];
+	private float[] priority = new float[0];
+	private float[] audibility = new float[0];
+	
+	private Resonator[] stolenVoices = new Resonator[0]; // The voices stolen in the last block.
+	private int nStolen = 0;
+	
+	/*
+	 * The lowest ranked voice kept by the last ranking, which new voices must outrank at the limit. Found by
+	 * steal() when it ranks the voices, or by the first admit() at the limit after it didn't need to.
+	 */
+	private boolean lowestKnown = false;
+	private float lowestPriority;
+	private float lowestAudibility;
+	
+	VoiceManager(Scene scene) {
+		this.scene = scene;
+	}
+	
+	/**
+	 * The number of resonators the scene may currently keep active.
+	 */
+	int getVoiceLimit() {
+		return Math.min((int) scene.getMaxResonators(), overloadLimit);
+	}
+	
+	/**
+	 * Returns true if a resonator may be activated when the given voices are already active.
+	 * Its level for the block is estimated from the excitation about to be mixed into it, scaled by gain.
+	 * Once the limit is reached, a resonator is admitted if it outranks the lowest ranked active voice: by the
+	 * priority of its body or, at equal priority, by level. steal() then fades out the lowest ranked voice.
+	 * The voices are ranked at most once a block, so each new excitation is only compared with the lowest.
+	 * A voice stolen in the last block needs a higher priority to come straight back, so that voices of
+	 * similar level don't take turns.
+	 */
+	boolean admit(Resonator res, Block excitation, float gain, List<Resonator> active) {
+		if (active.size() < getVoiceLimit())
+			return true;
+		if (!lowestKnown)
+			findLowest(active);
+		
+		float p = priorityOf(res);
+		if (p > lowestPriority)
+			return true;
+		if (p < lowestPriority || excitation == null || wasStolen(res))
+			return false;
+		
+		float level = peakSquared(excitation) * gain * gain * distanceGainSquared(res);
+		return level > lowestAudibility;
+	}
+	
+	/**
+	 * Find the lowest ranked of the active voices, when the limit was reached since steal() last ranked them.
+	 */
+	private void findLowest(List<Resonator> active) {
+		lowestPriority = Float.MAX_VALUE;
+		lowestAudibility = Float.MAX_VALUE;
+		for (int i = 0; i < active.size(); i++) {
+			Resonator res = active.get(i);
+			float p = priorityOf(res);
+			if (p > lowestPriority)
+				continue;
+			float a = audibilityOf(res);
+			if (p < lowestPriority || a < lowestAudibility) {
+				lowestPriority = p;
+				lowestAudibility = a;
+			}
+		}
+		lowestKnown = true;
+	}
+	
+	private boolean wasStolen(Resonator res) {
+		for (int i = 0; i < nStolen; i++) {
+			if (stolenVoices[i] == res)
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Rank the active resonators, after their inputs for the block have been mixed,
+	 * and set stolen[i] for each one that must be faded out this block. Returns the number stolen.
+	 */
+	int steal(List<Resonator> active, boolean[] stolen) {
+		int n = active.size();
+		for (int i = 0; i < n; i++)
+			stolen[i] = false;
+		for (int i = 0; i < nStolen; i++)
+			stolenVoices[i] = null;
+		nStolen = 0;
+		lowestKnown = false;
+		
+		int limit = getVoiceLimit();
+		if (n <= limit)
+			return 0;
+		
+		if (order.length < n) {
+			order = new int[n];
+			priority = new float[n];
+			audibility = new float[n];
+		}
+		
+		for (int i = 0; i < n; i++) {
+			Resonator res = active.get(i);
+			order[i] = i;
+			priority[i] = priorityOf(res);
+			audibility[i] = audibilityOf(res);
+		}
+		
+		// Insertion sort, highest ranked first. n is at most a little over the limit.
+		for (int i = 1; i < n; i++) {
+			int v = order[i];
+			int j = i - 1;
+			while (j >= 0 && ranksBelow(order[j], v)) {
+				order[j + 1] = order[j];
+				j--;
+			}
+			order[j + 1] = v;
+		}
+		
+		if (stolenVoices.length < n - limit)
+			stolenVoices = new Resonator[n];
+		for (int i = limit; i < n; i++) {
+			stolen[order[i]] = true;
+			stolenVoices[nStolen++] = active.get(order[i]);
+		}
+		if (limit > 0) {
+			// The next block's new voices must outrank the lowest voice kept.
+			int kept = order[limit - 1];
+			lowestPriority = priority[kept];
+			lowestAudibility = audibility[kept];
+			lowestKnown = true;
+		}
+		return n - limit;
+	}
+	
+	/**
+	 * Called when a block ran out of time after ticking nTicked resonators.
+	 */
+	void overran(int nTicked) {
+		overloadLimit = Math.max(1, Math.min(nTicked, getVoiceLimit()));
+	}
+	
+	/**
+	 * Called when a block finished in time.
+	 */
+	void inTime() {
+		if (overloadLimit != Integer.MAX_VALUE) {
+			overloadLimit++;
+			if (overloadLimit >= scene.getMaxResonators())
+				overloadLimit = Integer.MAX_VALUE;
+		}
+	}
+	
+	private boolean ranksBelow(int a, int b) {
+		if (priority[a] != priority[b])
+			return priority[a] < priority[b];
+		if (audibility[a] != audibility[b])
+			return audibility[a] < audibility[b];
+		return a > b;
+	}
+	
+	private static float priorityOf(Resonator res) {
+		Body body = res.getBody();
+		return body == null ? 0f : body.getPriority();
+	}
+	
+	/**
+	 * Squared level of the resonator, plus the peak of its input, at the listener.
+	 */
+	static float audibilityOf(Resonator res) {
+		return (res.estimateVolume() + peakSquared(res.getInput())) * distanceGainSquared(res);
+	}
+	
+	private static float distanceGainSquared(Resonator res) {
+		Body body = res.getBody();
+		if (body == null)
+			return 1f;
+		float gain = body.getDistanceModel().getGain(body.getCurrentDistance());
+		return gain * gain;
+	}
+	
+	private static float peakSquared(Block block) {
+		float peak = 0f;
+		int start = block.getLiveStart();
+		int end = block.getLiveEnd();
+		float[] array = block.getLiveArray();
+		if (array != null) {
+			for (int i = start; i < end; i++) {
+				float s = array[i];
+				if (s * s > peak)
+					peak = s * s;
+			}
+		} else {
+			FloatBuffer input = block.getLiveBuffer();
+			for (int i = start; i < end; i++) {
+				float s = input.get(i);
+				if (s * s > peak)
+					peak = s * s;
+			}
+		}
+		return peak;
+	}
+}
@@ -1,305 +1,636 @@
-/*
-Copyright (C) 2001, Dylan Menzies
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.signal;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-
-import com.jphya.scene.Scene;
-import com.jphya.utility.Rnd;
-
-public class Block {
-	//
-	// paBlock.hpp
-	//
-	// Container class for audio blocks used in signal processing.
-	//
-	// This provides a friendly extra layer of indirection to the sample data,
-	// which is neccessary if we wish to establish signal connections between
-	// objects once,
-	// and later page-switch samples in the output paBlock of an object.
-	// The price of the extra indirection is not important since it is only
-	// incurred
-	// once per block operation.
-	private ByteBuffer buffer; // Location of this block's own samples.
-	private FloatBuffer m_samples; // Location of this block's own samples.
-	private FloatBuffer m_start; // Start of sample block, initially this block, but
-	// can point to other blocks.
-	// bool m_zeroState; // Experimental flag for reducing arithmetic
-	// operations. Probably more hassle than its worth.
-
-	//public static ObjectPool<Block> pool = new ObjectPool<Block>(Block.class);
-	private final Scene scene;
-	// public int m_poolHandle; // Used for freeing a block to the pool.
-
-	// void setZeroState(void) { m_zeroState = true; } // Makes efficient buffer
-	// filling easy: If m_zeroState is set 'addWithMultiply' interpreted as
-	// 'copyWithMultiply' so 'zero' is avoided.
-	// void clearZeroState(void) { m_zeroState = false; } // Makes efficient
-	// buffer filling easy: If m_zeroState is set 'addWithMultiply' interpreted
-	// as 'copyWithMultiply' so 'zero' is avoided.
-	// bool isZero() { return m_zeroState; }
-	public FloatBuffer getStart() {
-		return m_start;
-	}
-
-	public void setStart(FloatBuffer s) {
-		m_start = s;
-	}
-
-	public void resetStart() {
-		m_start = m_samples.duplicate();//look into this...
-	}
-
-	public static final int INIT_NBLOCKFRAMES = 128;
-
-	private static final float SHRT_MAX = Short.MAX_VALUE;
-	private static final float SHRT_MIN = Short.MIN_VALUE;
-//	public static int nMaxFrames = INIT_NBLOCKFRAMES;
-	//public static int nFrames = INIT_NBLOCKFRAMES;
-
-	public static Block newBlock(Scene scene) {
-		//first check the allocation pool:
-		Block b  = scene.getAllocationManager().acquireObject(Block.class);
-		if(b==null)
-		{
-			b = new Block(scene);// pool.newActiveObject();
-		}
-		
-		scene.addBlock(b);
-		return b;
-	}
-
-	public static void deleteBlock(Block b) {
-		b.scene.removeBlock(b);
-		b.scene.getAllocationManager().returnObject(b);
-	}
-
-	/**
-	 * Use the static constructor for allocation management.
-	 * @param scene
-	 */
-	protected Block(Scene scene) {
-		this.scene = scene;	
-		buffer = ByteBuffer.allocateDirect(scene.getNMaxFrames()*Float.SIZE/Byte.SIZE).order(ByteOrder.nativeOrder());
-		
-		m_samples = buffer.asFloatBuffer(); // (float)paCalloc(nMaxFrames,
-		// float.SIZE);
-		//CRITICALLY IMPRTANT: duplicate does not preserve byte order
-		m_start = buffer.duplicate().order(ByteOrder.nativeOrder()).asFloatBuffer();
-		
-	//	scene.addBlock(this);
-		// m_zeroState = false;
-		// m_poolHandle = -1;
-	}
-
-	public ByteBuffer getStartBytes()
-	{
-		return buffer;
-	}
-
-	public int getNFrames()
-	{
-		return scene.getNFrames();
-	}
-	
-	public void zero() {
-		// m_zeroState = true;
-
-		assert (getNFrames() <= scene.getNMaxFrames());
-		int i;
-		for (i = 0; i < getNFrames(); i++)
-			m_start.put(i,0f);
-		
-	}
-
-	public void copy(Block input) {
-		// m_zeroState = false;
-		m_start.rewind();
-		m_start.put(input.m_start);
-		m_start.rewind();
-		//System.arraycopy(input.m_start, 0, m_start, 0, nFrames);
-		// paMemcpy( m_start, input.m_start, float.SIZE * nFrames );
-	}
-
-	public void multiplyBy(float multfactor) {
-		int i;
-		m_start.rewind();
-		for (i = 0; i < getNFrames(); i++)
-		{		
-			m_start.put(i, m_start.get(i)*multfactor);
-		}
-		// compilation.
-	}
-
-	public void add(Block inBlock) {
-		int i;
-
-		assert (inBlock != null);
-		// if (m_zeroState) { copy(inBlock); m_zeroState = false; return; };
-	
-		for (i = 0; i < getNFrames(); i++)
-		{
-			m_start.put(i, m_start.get(i)+inBlock.m_start.get(i));
-		}
-	}
-
-	public void addWithMultiply(Block inBlock, float multfactor) {
-		int i;
-
-		// if (m_zeroState) { copyWithMultiply(inBlock, multfactor); return; };
-
-		if (multfactor != 0) {
-			
-			for (i = 0; i <  getNFrames(); i++)
-			{
-				m_start.put(i, m_start.get(i)+inBlock.m_start.get(i)*multfactor);
-			}
-		}else
-			zero();
-	}
-
-	public void copyWithMultiply(Block inBlock, float multfactor) {
-		int i;
-
-		// if (multfactor == 0) {
-		// m_zeroState = true;
-		// return;
-		// }
-		// m_zeroState = false;
-		if(multfactor!=0f)
-		{	
-		//float[] in = inBlock.m_start;
-			for (i = 0; i < getNFrames(); i++)
-			{
-				m_start.put(i, inBlock.m_start.get(i)*multfactor);
-				//m_start[i] = in[i] * multfactor;
-			}
-		}else{
-			zero();
-		}
-	}
-
-/*	public static int setnMaxFrames(int n) {
-		if (pool.getnObjects() != 0)
-			return -1; // Can't change now.
-
-		nMaxFrames = n;
-		scene.setNFrames(n);
-		return 0;
-	}*/
-
-	public int setnFrames(int n) {
-		if (n > scene.getNMaxFrames())
-			return -1;
-
-		scene.setNFrames(n);
-		return 0;
-	}
-
-	public void square() {
-		int i;
-		for (i = 0; i <  getNFrames(); i++)
-		{
-			float v = m_start.get(i);
-			m_start.put(i, v*v);
-			//m_start[i] = m_start[i] * m_start[i];
-		}
-	}
-
-	void fillWithNoise() {
-		int i;
-		m_start.rewind();
-		float shift = Rnd.RAND_MAX * .5f; // NB this gives true zero average.
-		for (i = 0; i <  getNFrames(); i++)
-		{
-			m_start.put((float) Rnd.random() - shift);
-			//m_start[i] = (float) Rnd.random() - shift;
-		}
-		m_start.rewind();
-	}
-
-	void fillWithNoise(float amp) {
-		int i;
-		m_start.rewind();
-		float scale = 2 * amp / Rnd.RAND_MAX;
-		for (i = 0; i <  getNFrames(); i++)
-		{
-			m_start.put((float)-amp + scale * Rnd.random());
-			//m_start[i] = -amp + scale * Rnd.random();
-		}
-		m_start.rewind();
-	}
-
-	float sum() {
-		float sum = 0;
-
-		// ! This isn't the most numerically-accurate method:
-
-		int i;
-		for (i = 0; i <  getNFrames(); i++)
-			sum += m_start.get(i);
-
-		return sum;
-	}
-
-	public void fadeout() {
-		int i;
-		float incr = (float) -1f / ((float)  getNFrames());
-		float mult = (float) 1.0f;
-		for (i = 0; i <  getNFrames(); i++) {
-			m_start.put(i, m_start.get(i)*mult);
-			//m_start[i] *= mult;
-			mult += incr;
-		}
-	}
-
-	void limit() {
-		int i;
-		/*float a = SHRT_MAX * 0.75f;
-		float b = SHRT_MAX;
-		float c = b - a;*/
-
-		for (i = 0; i <  getNFrames(); i++) {
-			if (m_start.get(i) > SHRT_MAX)
-				m_start.put(i, SHRT_MAX);
-			else if (m_start.get(i) < SHRT_MIN)
-				m_start.put(i, SHRT_MIN);
-
-			/*
-			 * if (m_start[i] > a) { m_start[i] = b - cc/(m_start[i]-a+c); }
-			 * else if (m_start[i] < -a) { m_start[i] = -b +
-			 * cc/(-m_start[i]-a+c); }
-			 */
-		}
-	}
-
-	public Scene getScene() {
-		return scene;
-	}
-
-}
\ No newline at end of file
+/*
+Copyright (C) 2001, Dylan Menzies
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.jphya.scene.Scene;
+import com.jphya.utility.IndexedList;
+import com.jphya.utility.Rnd;
+
+public class Block implements IndexedList.Member {
+	//
+	// paBlock.hpp
+	//
+	// Container class for audio blocks used in signal processing.
+	//
+	// This provides a friendly extra layer of indirection to the sample data,
+	// which is neccessary if we wish to establish signal connections between
+	// objects once,
+	// and later page-switch samples in the output paBlock of an object.
+	// The price of the extra indirection is not important since it is only
+	// incurred
+	// once per block operation.
+	private ByteBuffer buffer; // Location of this block's own samples.
+	private FloatBuffer m_samples; // Location of this block's own samples.
+	private FloatBuffer m_start; // Start of sample block, initially this block, but
+	// can point to other blocks.
+	private float[] m_array; // Heap storage for this block's own samples, or null for a direct block.
+	private float[] m_startArray; // Array behind m_start, or null if m_start is direct.
+	private FloatBuffer m_bufferSamples; // Float view of 'buffer', used to copy heap samples out.
+
+	// Much of the signal is silence, so blocks track which samples can be non-zero.
+	// Samples outside [m_liveStart, m_liveEnd) are zero whatever the storage holds,
+	// and all of them are if m_zeroState is set. The storage is only cleared when
+	// the samples are handed out through getStart() or getArray().
+	private boolean m_zeroState;
+	private int m_liveStart;
+	private int m_liveEnd;
+
+	//public static ObjectPool<Block> pool = new ObjectPool<Block>(Block.class);
+	private final Scene scene;
+	private int m_poolHandle; // Used for freeing a block to the pool.
+
+	/**
+	 * Returns the samples, for reading or writing. Any samples outside the live range are cleared first,
+	 * and the whole block is live afterwards.
+	 */
+	public FloatBuffer getStart() {
+		materialize();
+		return m_start;
+	}
+
+	public void setStart(FloatBuffer s) {
+		m_start = s;
+		m_startArray = (s.hasArray() && s.arrayOffset() == 0) ? s.array() : null;
+		setAllLive(); // Nothing is known about the new samples.
+	}
+
+	public void resetStart() {
+		m_start = m_samples.duplicate();//look into this...
+		m_startArray = m_array;
+		setAllLive();
+	}
+
+	/**
+	 * Returns the array holding the samples at getStart(), or null if they are held in a direct buffer.
+	 * Signal processing loops can index this array directly instead of going through the FloatBuffer.
+	 * As for getStart(), samples outside the live range are cleared first.
+	 */
+	public float[] getArray() {
+		materialize();
+		return m_startArray;
+	}
+
+	/**
+	 * Returns the samples without clearing those outside the live range, which may hold anything.
+	 * Only samples in [getLiveStart(), getLiveEnd()) are meaningful. Code that writes samples through
+	 * this must call setLive() with the range it wrote.
+	 */
+	public FloatBuffer getLiveBuffer() {
+		return m_start;
+	}
+
+	/**
+	 * The array equivalent of getLiveBuffer(), or null if the samples are in a direct buffer.
+	 */
+	public float[] getLiveArray() {
+		return m_startArray;
+	}
+
+	/**
+	 * True if every sample is zero.
+	 */
+	public boolean isZero() {
+		return m_zeroState;
+	}
+
+	/**
+	 * First sample that may be non-zero.
+	 */
+	public int getLiveStart() {
+		return m_zeroState ? 0 : Math.min(m_liveStart, getNFrames());
+	}
+
+	/**
+	 * One past the last sample that may be non-zero.
+	 */
+	public int getLiveEnd() {
+		return m_zeroState ? 0 : Math.min(m_liveEnd, getNFrames());
+	}
+
+	/**
+	 * Declare that only the samples in [start, end) may be non-zero; the rest will read as zero
+	 * whatever the storage holds. An empty range is the same as zero().
+	 */
+	public void setLive(int start, int end) {
+		if (start >= end) {
+			zero();
+			return;
+		}
+		m_zeroState = false;
+		m_liveStart = start;
+		m_liveEnd = end;
+	}
+
+	private void setAllLive() {
+		m_zeroState = false;
+		m_liveStart = 0;
+		m_liveEnd = scene.getNMaxFrames();
+	}
+
+	/**
+	 * Clear the storage outside the live range, and make the whole block live.
+	 */
+	private void materialize() {
+		if (m_zeroState) {
+			clear(0, scene.getNMaxFrames());
+		} else {
+			clear(0, m_liveStart);
+			clear(m_liveEnd, scene.getNMaxFrames());
+		}
+		setAllLive();
+	}
+
+	/**
+	 * Make [start, end) live as well as the current live range, clearing any samples that become live.
+	 */
+	private void extendLive(int start, int end) {
+		if (m_zeroState) {
+			clear(start, end);
+			setLive(start, end);
+			return;
+		}
+		if (start < m_liveStart) {
+			clear(start, m_liveStart);
+			m_liveStart = start;
+		}
+		if (end > m_liveEnd) {
+			clear(m_liveEnd, end);
+			m_liveEnd = end;
+		}
+	}
+
+	private void clear(int start, int end) {
+		if (start >= end)
+			return;
+		if (m_startArray != null) {
+			Arrays.fill(m_startArray, start, end, 0f);
+			return;
+		}
+		for (int i = start; i < end; i++)
+			m_start.put(i, 0f);
+	}
+
+	public static final int INIT_NBLOCKFRAMES = 128;
+
+	private static final float SHRT_MAX = Short.MAX_VALUE;
+	private static final float SHRT_MIN = Short.MIN_VALUE;
+
+	private static final BlockKernels kernels = BlockKernels.get();
+//	public static int nMaxFrames = INIT_NBLOCKFRAMES;
+	//public static int nFrames = INIT_NBLOCKFRAMES;
+
+	public static Block newBlock(Scene scene) {
+		//first check the allocation pool:
+		Block b  = scene.getAllocationManager().acquireObject(Block.class);
+		if(b==null)
+		{
+			b = new Block(scene);// pool.newActiveObject();
+		}
+		
+		scene.addBlock(b);
+		return b;
+	}
+
+	public static void deleteBlock(Block b) {
+		b.scene.removeBlock(b);
+		b.scene.getAllocationManager().returnObject(b);
+	}
+
+	/**
+	 * Use the static constructor for allocation management.
+	 * @param scene
+	 */
+	protected Block(Scene scene) {
+		this.scene = scene;	
+		if (scene.isHeapBlocks()) {
+			// The direct buffer is only created if the samples are asked for as bytes.
+			m_array = new float[scene.getNMaxFrames()];
+			m_samples = FloatBuffer.wrap(m_array);
+			m_start = FloatBuffer.wrap(m_array);
+			m_startArray = m_array;
+		} else {
+			buffer = ByteBuffer.allocateDirect(scene.getNMaxFrames()*Float.SIZE/Byte.SIZE).order(ByteOrder.nativeOrder());
+			
+			m_samples = buffer.asFloatBuffer(); // (float)paCalloc(nMaxFrames,
+			// float.SIZE);
+			//CRITICALLY IMPRTANT: duplicate does not preserve byte order
+			m_start = buffer.duplicate().order(ByteOrder.nativeOrder()).asFloatBuffer();
+		}
+		
+	//	scene.addBlock(this);
+		m_zeroState = true;
+		m_poolHandle = -1;
+	}
+
+	/**
+	 * Create a direct block on a slice of a larger buffer. Used by BlockArena.
+	 */
+	Block(Scene scene, ByteBuffer slice) {
+		this.scene = scene;
+		buffer = slice.order(ByteOrder.nativeOrder());
+		m_samples = buffer.asFloatBuffer();
+		m_start = buffer.duplicate().order(ByteOrder.nativeOrder()).asFloatBuffer();
+		m_zeroState = true;
+		m_poolHandle = -1;
+	}
+
+	public int getListIndex() {
+		return m_poolHandle;
+	}
+
+	public void setListIndex(int index) {
+		m_poolHandle = index;
+	}
+
+	/**
+	 * Returns this block's own samples as native order bytes, for an AudioOutputStream or callback.
+	 * A heap block copies its samples into a direct buffer here, in one bulk transfer.
+	 */
+	public ByteBuffer getStartBytes()
+	{
+		materialize();
+		if (m_array != null) {
+			if (buffer == null) {
+				buffer = ByteBuffer.allocateDirect(scene.getNMaxFrames()*Float.SIZE/Byte.SIZE).order(ByteOrder.nativeOrder());
+				m_bufferSamples = buffer.asFloatBuffer();
+			}
+			m_bufferSamples.clear();
+			m_bufferSamples.put(m_array, 0, getNFrames());
+			buffer.clear();
+			buffer.limit(getNFrames()*(Float.SIZE/Byte.SIZE));
+		}
+		return buffer;
+	}
+
+	public int getNFrames()
+	{
+		return scene.getNFrames();
+	}
+	
+	/**
+	 * Set all samples to zero. This only sets the zero state; the storage is not touched.
+	 */
+	public void zero() {
+		m_zeroState = true;
+		m_liveStart = 0;
+		m_liveEnd = 0;
+	}
+
+	public void copy(Block input) {
+		if (input.m_zeroState) {
+			zero();
+			return;
+		}
+		int start = input.getLiveStart();
+		int end = input.getLiveEnd();
+		if (m_startArray != null && input.m_startArray != null) {
+			System.arraycopy(input.m_startArray, start, m_startArray, start, end - start);
+		} else {
+			for (int i = start; i < end; i++)
+				m_start.put(i, input.m_start.get(i));
+		}
+		setLive(start, end);
+		//System.arraycopy(input.m_start, 0, m_start, 0, nFrames);
+		// paMemcpy( m_start, input.m_start, float.SIZE * nFrames );
+	}
+
+	/**
+	 * Copy the block's samples into the start of an array, in one bulk transfer.
+	 */
+	public void copyTo(float[] dst) {
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		Arrays.fill(dst, 0, start, 0f);
+		if (m_startArray != null) {
+			System.arraycopy(m_startArray, start, dst, start, end - start);
+		} else {
+			m_start.position(start);
+			m_start.get(dst, start, end - start);
+			m_start.rewind();
+		}
+		Arrays.fill(dst, end, getNFrames(), 0f);
+	}
+
+	/**
+	 * Put n samples, starting at sample 'from', into dst at its position. Silent samples are written as zeros
+	 * without reading the block's storage.
+	 */
+	public void copyTo(FloatBuffer dst, int from, int n) {
+		int to = from + n;
+		int start = Math.max(from, Math.min(getLiveStart(), to));
+		int end = Math.max(start, Math.min(getLiveEnd(), to));
+		for (int i = from; i < start; i++)
+			dst.put(0f);
+		if (end > start) {
+			if (m_startArray != null) {
+				dst.put(m_startArray, start, end - start);
+			} else {
+				int limit = m_start.limit();
+				m_start.limit(end);
+				m_start.position(start);
+				dst.put(m_start);
+				m_start.limit(limit);
+				m_start.rewind();
+			}
+		}
+		for (int i = end; i < to; i++)
+			dst.put(0f);
+	}
+
+	/**
+	 * Copy samples from the start of an array into the block, in one bulk transfer.
+	 */
+	public void copyFrom(float[] src) {
+		if (m_startArray != null) {
+			System.arraycopy(src, 0, m_startArray, 0, getNFrames());
+		} else {
+			m_start.rewind();
+			m_start.put(src, 0, getNFrames());
+			m_start.rewind();
+		}
+		setAllLive();
+	}
+
+	public void multiplyBy(float multfactor) {
+		if (m_zeroState)
+			return;
+		int i;
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		float[] s = m_startArray;
+		if (s != null) {
+			kernels.multiplyBy(s, multfactor, start, end);
+			return;
+		}
+		for (i = start; i < end; i++)
+		{		
+			m_start.put(i, m_start.get(i)*multfactor);
+		}
+		// compilation.
+	}
+
+	public void add(Block inBlock) {
+		int i;
+
+		assert (inBlock != null);
+		if (inBlock.m_zeroState)
+			return;
+		if (m_zeroState) { copy(inBlock); return; }
+	
+		int start = inBlock.getLiveStart();
+		int end = inBlock.getLiveEnd();
+		extendLive(start, end);
+		float[] s = m_startArray;
+		float[] in = inBlock.m_startArray;
+		if (s != null && in != null) {
+			kernels.add(s, in, start, end);
+			return;
+		}
+		FloatBuffer out = m_start;
+		FloatBuffer inBuffer = inBlock.m_start;
+		if (start == 0) {
+			// Kept as a separate loop: the JIT optimises a direct buffer loop with a constant start much better.
+			for (i = 0; i < end; i++)
+				out.put(i, out.get(i)+inBuffer.get(i));
+			return;
+		}
+		for (i = start; i < end; i++)
+		{
+			out.put(i, out.get(i)+inBuffer.get(i));
+		}
+	}
+
+	/**
+	 * Add inBlock scaled by multfactor. Only inBlock's live range is touched, and nothing at all if it is
+	 * zero or multfactor is 0.
+	 */
+	public void addWithMultiply(Block inBlock, float multfactor) {
+		int i;
+
+		if (multfactor == 0 || inBlock.m_zeroState)
+			return;
+		if (m_zeroState) { copyWithMultiply(inBlock, multfactor); return; }
+
+		int start = inBlock.getLiveStart();
+		int end = inBlock.getLiveEnd();
+		extendLive(start, end);
+		float[] s = m_startArray;
+		float[] in = inBlock.m_startArray;
+		if (s != null && in != null) {
+			kernels.addWithMultiply(s, in, multfactor, start, end);
+			return;
+		}
+		
+		FloatBuffer out = m_start;
+		FloatBuffer inBuffer = inBlock.m_start;
+		if (start == 0) {
+			for (i = 0; i < end; i++)
+				out.put(i, out.get(i)+inBuffer.get(i)*multfactor);
+			return;
+		}
+		for (i = start; i < end; i++)
+		{
+			out.put(i, out.get(i)+inBuffer.get(i)*multfactor);
+		}
+	}
+
+	public void copyWithMultiply(Block inBlock, float multfactor) {
+		int i;
+
+		if (multfactor == 0 || inBlock.m_zeroState) {
+			zero();
+			return;
+		}
+		int start = inBlock.getLiveStart();
+		int end = inBlock.getLiveEnd();
+		float[] s = m_startArray;
+		float[] in = inBlock.m_startArray;
+		if (s != null && in != null) {
+			kernels.copyWithMultiply(s, in, multfactor, start, end);
+		} else {
+			for (i = start; i < end; i++)
+			{
+				m_start.put(i, inBlock.m_start.get(i)*multfactor);
+				//m_start[i] = in[i] * multfactor;
+			}
+		}
+		setLive(start, end);
+	}
+
+/*	public static int setnMaxFrames(int n) {
+		if (pool.getnObjects() != 0)
+			return -1; // Can't change now.
+
+		nMaxFrames = n;
+		scene.setNFrames(n);
+		return 0;
+	}*/
+
+	public int setnFrames(int n) {
+		if (n > scene.getNMaxFrames())
+			return -1;
+
+		scene.setNFrames(n);
+		return 0;
+	}
+
+	public void square() {
+		if (m_zeroState)
+			return;
+		int i;
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		float[] s = m_startArray;
+		if (s != null) {
+			kernels.square(s, start, end);
+			return;
+		}
+		for (i = start; i < end; i++)
+		{
+			float v = m_start.get(i);
+			m_start.put(i, v*v);
+			//m_start[i] = m_start[i] * m_start[i];
+		}
+	}
+
+	void fillWithNoise() {
+		int i;
+		m_start.rewind();
+		float shift = Rnd.RAND_MAX * .5f; // NB this gives true zero average.
+		setAllLive();
+		if (m_startArray != null) {
+			for (i = 0; i < getNFrames(); i++)
+				m_startArray[i] = Rnd.random() - shift;
+			return;
+		}
+		for (i = 0; i <  getNFrames(); i++)
+		{
+			m_start.put((float) Rnd.random() - shift);
+			//m_start[i] = (float) Rnd.random() - shift;
+		}
+		m_start.rewind();
+	}
+
+	void fillWithNoise(float amp) {
+		int i;
+		m_start.rewind();
+		float scale = 2 * amp / Rnd.RAND_MAX;
+		setAllLive();
+		if (m_startArray != null) {
+			for (i = 0; i < getNFrames(); i++)
+				m_startArray[i] = -amp + scale * Rnd.random();
+			return;
+		}
+		for (i = 0; i <  getNFrames(); i++)
+		{
+			m_start.put((float)-amp + scale * Rnd.random());
+			//m_start[i] = -amp + scale * Rnd.random();
+		}
+		m_start.rewind();
+	}
+
+	float sum() {
+		float sum = 0;
+
+		// ! This isn't the most numerically-accurate method:
+
+		int i;
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		if (m_startArray != null) {
+			for (i = start; i < end; i++)
+				sum += m_startArray[i];
+			return sum;
+		}
+		for (i = start; i < end; i++)
+			sum += m_start.get(i);
+
+		return sum;
+	}
+
+	public void fadeout() {
+		if (m_zeroState)
+			return;
+		int i;
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		if (m_startArray != null) {
+			kernels.fadeout(m_startArray, start, end, getNFrames());
+			return;
+		}
+		float incr = (float) -1f / ((float)  getNFrames());
+		float mult = (float) 1.0f;
+		for (i = 0; i < start; i++)
+			mult += incr;
+		for (i = start; i < end; i++) {
+			m_start.put(i, m_start.get(i)*mult);
+			//m_start[i] *= mult;
+			mult += incr;
+		}
+	}
+
+	void limit() {
+		int i;
+		/*float a = SHRT_MAX * 0.75f;
+		float b = SHRT_MAX;
+		float c = b - a;*/
+
+		int start = getLiveStart();
+		int end = getLiveEnd();
+		float[] s = m_startArray;
+		if (s != null) {
+			for (i = start; i < end; i++) {
+				if (s[i] > SHRT_MAX)
+					s[i] = SHRT_MAX;
+				else if (s[i] < SHRT_MIN)
+					s[i] = SHRT_MIN;
+			}
+			return;
+		}
+		for (i = start; i < end; i++) {
+			if (m_start.get(i) > SHRT_MAX)
+				m_start.put(i, SHRT_MAX);
+			else if (m_start.get(i) < SHRT_MIN)
+				m_start.put(i, SHRT_MIN);
+
+			/*
+			 * if (m_start[i] > a) { m_start[i] = b - cc/(m_start[i]-a+c); }
+			 * else if (m_start[i] < -a) { m_start[i] = -b +
+			 * cc/(-m_start[i]-a+c); }
+			 */
+		}
+	}
+
+	public Scene getScene() {
+		return scene;
+	}
+
+}
@@ -0,0 +1,139 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.jphya.scene.Scene;
+
+/**
+ * The blocks a scene uses while rendering, carved from large direct buffers rather than allocated one by one.
+ * <p>
+ * Scratch blocks are for use within a single tick. They are taken with a lock-free bump of a counter, so that
+ * generators ticked in parallel can take them too, and are all reclaimed at once by reset().
+ * Owned blocks, such as resonator inputs, are kept until they are released. Only the audio thread may acquire
+ * and release them.
+ * <p>
+ * Heap block scenes get a float array for each block instead of a slice.
+ * @author Sam
+ *
+ */
+public final class BlockArena {
+
+	private static final int CACHE_LINE = 64;
+	private static final int SLAB_BLOCKS = 16; // Blocks carved from each buffer.
+
+	private final Scene scene;
+
+	private volatile Block[] m_scratch = new Block[0];
+	private final AtomicInteger m_nScratch = new AtomicInteger();
+
+	private Block[] m_free = new Block[0];
+	private int m_nFree = 0;
+
+	public BlockArena(Scene scene) {
+		this.scene = scene;
+	}
+
+	/**
+	 * Take a zeroed block that is valid until the next reset(). Thread safe.
+	 */
+	public Block scratch() {
+		int i = m_nScratch.getAndIncrement();
+		Block[] blocks = m_scratch;
+		Block b = i < blocks.length ? blocks[i] : growScratch(i);
+		b.zero();
+		return b;
+	}
+
+	private synchronized Block growScratch(int i) {
+		Block[] blocks = m_scratch;
+		if (i >= blocks.length) {
+			int n = blocks.length;
+			blocks = Arrays.copyOf(blocks, Math.max(i + 1, n + SLAB_BLOCKS));
+			carve(blocks, n, blocks.length);
+			m_scratch = blocks;
+		}
+		return blocks[i];
+	}
+
+	/**
+	 * Reclaim all the scratch blocks. Called by the audio thread between ticks.
+	 */
+	public void reset() {
+		m_nScratch.set(0);
+	}
+
+	/**
+	 * Take a zeroed block, to keep until it is passed to release(). Audio thread only.
+	 */
+	public Block acquire() {
+		if (m_nFree == 0) {
+			if (m_free.length < SLAB_BLOCKS)
+				m_free = new Block[SLAB_BLOCKS];
+			carve(m_free, 0, SLAB_BLOCKS);
+			m_nFree = SLAB_BLOCKS;
+		}
+		Block b = m_free[--m_nFree];
+		m_free[m_nFree] = null;
+		b.zero();
+		return b;
+	}
+
+	/**
+	 * Return a block taken with acquire(). Audio thread only.
+	 */
+	public void release(Block b) {
+		if (m_nFree == m_free.length)
+			m_free = Arrays.copyOf(m_free, m_free.length * 2);
+		m_free[m_nFree++] = b;
+	}
+
+	/**
+	 * Fill blocks[from..to) with new blocks, sharing one direct buffer.
+	 * Each slice is padded to whole cache lines, plus one, so that no two blocks share a line
+	 * wherever the buffer starts.
+	 */
+	private void carve(Block[] blocks, int from, int to) {
+		if (scene.isHeapBlocks()) {
+			for (int i = from; i < to; i++)
+				blocks[i] = new Block(scene);
+			return;
+		}
+		int bytes = scene.getNMaxFrames() * (Float.SIZE / Byte.SIZE);
+		int stride = ((bytes + CACHE_LINE - 1) / CACHE_LINE + 1) * CACHE_LINE;
+		ByteBuffer slab = ByteBuffer.allocateDirect(stride * (to - from));
+		for (int i = from; i < to; i++) {
+			int offset = (i - from) * stride;
+			slab.limit(offset + bytes);
+			slab.position(offset);
+			blocks[i] = new Block(scene, slab.slice());
+		}
+	}
+
+}
@@ -0,0 +1,117 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+/**
+ * The inner loops of the Block operations and distance models, over the float arrays of heap blocks.
+ * <p>
+ * One implementation is chosen when this class is loaded. The Vector API kernels in jphya-vector.jar are used if
+ * that jar is on the class path, the JVM was started with --add-modules jdk.incubator.vector and the hardware has
+ * vector registers. Otherwise the plain scalar loops are used. Set -Djphya.vector=false to force the scalar loops.
+ * @author Sam
+ *
+ */
+public abstract class BlockKernels {
+
+	static final String VECTOR_KERNELS = "com.jphya.signal.VectorBlockKernels";
+
+	private static final BlockKernels scalar = new ScalarBlockKernels();
+	private static final BlockKernels instance = load();
+
+	/**
+	 * The kernels used by this JVM.
+	 */
+	public static BlockKernels get() {
+		return instance;
+	}
+
+	/**
+	 * The scalar kernels, which are always available.
+	 */
+	public static BlockKernels scalar() {
+		return scalar;
+	}
+
+	private static BlockKernels load() {
+		if (!Boolean.parseBoolean(System.getProperty("jphya.vector", "true")))
+			return scalar;
+		try {
+			return (BlockKernels) Class.forName(VECTOR_KERNELS).getConstructor().newInstance();
+		} catch (Exception e) {
+			// Not on the class path, or no vector hardware.
+		} catch (LinkageError e) {
+			// Incubator module not present, or a JVM older than the kernels.
+		}
+		return scalar;
+	}
+
+	public abstract String getName();
+
+	// Each kernel works on the samples in [from, to), which lets blocks skip their silent parts.
+
+	/**
+	 * dst[i] += src[i]
+	 */
+	public abstract void add(float[] dst, float[] src, int from, int to);
+
+	/**
+	 * dst[i] += src[i] * multfactor
+	 */
+	public abstract void addWithMultiply(float[] dst, float[] src, float multfactor, int from, int to);
+
+	/**
+	 * dst[i] = src[i] * multfactor
+	 */
+	public abstract void copyWithMultiply(float[] dst, float[] src, float multfactor, int from, int to);
+
+	/**
+	 * dst[i] *= multfactor
+	 */
+	public abstract void multiplyBy(float[] dst, float multfactor, int from, int to);
+
+	/**
+	 * dst[i] *= dst[i]
+	 */
+	public abstract void square(float[] dst, int from, int to);
+
+	/**
+	 * Linear fade from 1 at sample 0 towards 0 at sample nFrames.
+	 * Implementations may differ from the scalar version in the last bit.
+	 */
+	public abstract void fadeout(float[] dst, int from, int to, int nFrames);
+
+	/**
+	 * Divide each sample by the distance, ramped linearly from distanceStart by slope per sample.
+	 * Distances below minDistance count as 1.
+	 */
+	public abstract void inverseDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to);
+
+	/**
+	 * Divide each sample by 4 PI times the square of the distance, ramped as for inverseDistance.
+	 */
+	public abstract void inverseSquareDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to);
+
+}
@@ -1,328 +1,445 @@
-/*
-Copyright (C) 2001, Dylan Menzies
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.signal;
-
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
-import java.nio.FloatBuffer;
-
-import com.jphya.scene.Scene;
-
-public class Limiter {
-
-	public static final int DIRECT = 0;
-	public static final int ATTACK = 1;
-	public static final int HOLD = 2;
-	public static final int RELEASE = 3;
-
-	private Block m_input;
-	private Block m_output;
-	private int m_bufferLen; // Used for attack lookahead.
-	private FloatBuffer m_bufferStart;
-
-	private ByteBuffer buffer;
-	private FloatBuffer m_bufferIO; // Initial readout/readin point.
-
-	private int m_bufferIO_position = 0;
-
-	private float m_threshold; // Control parameters.
-	private long m_holdLen;
-	private long m_releaseLen;
-
-	private float m_gain;
-	private float m_gainRate;
-	private float m_gainTarget;
-	private float m_peak;
-	private long m_holdCount;
-	private long m_releaseCount;
-	private int m_state;
-
-	protected final Scene scene;
-	
-	public void setInput(Block input) {
-		m_input = input;
-	};
-
-	public void setOutput(Block output) {
-		m_output = output;
-	};
-
-	public void setThreshold(float t) {
-		m_threshold = t;
-	};
-
-	public void setHoldTime(float t) {
-		m_holdLen = (long) (t * scene.getFPS());
-	};
-
-	public void setReleaseTime(float t) {
-		m_releaseLen = (long) (t * scene.getFPS());
-	};
-
-	public Block tick(Block input, Block output) {
-		m_input = input;
-		m_output = output;
-		return tick();
-	}
-
-	public Block tick(Block io) {
-		m_input = io;
-		m_output = io;
-		return tick();
-	}
-
-	Block getOutput() {
-		return m_output;
-	};
-
-	public final static float RATEBOOST = 2.0f;
-
-	// public final static float REPORT = check(out[i],m_threshold);
-	void check(float f, float t) {
-		if (f > t) {
-			// printf("limiter fail\n");
-		}
-	}
-
-	public Limiter(float attackTime, float holdTime, float releaseTime,Scene scene) {
-		this.scene = scene;
-		m_input = null; // io blocks, user set.
-		m_output = null;
-
-		// Make buffer a multiple of blocks, to make buffer read write simpler.
-		m_bufferLen =  scene.getNFrames() * (1 + (int) (attackTime * scene.getFPSFrames()));
-		buffer = ByteBuffer.allocateDirect(m_bufferLen*Float.SIZE/Byte.SIZE).order(ByteOrder.nativeOrder());
-		m_bufferStart =  buffer.asFloatBuffer();
-		m_bufferIO = m_bufferStart.duplicate(); // (float*)paCalloc(m_bufferLen,
-												// sizeof(float));
-	
-		// m_bufferEnd = m_bufferStart + m_bufferLen;
-		// m_bufferStart = 0; // Initial readout/readin point.
-
-		m_state = DIRECT;
-		m_threshold = 20000; // 32767 //! Reduced to prevent glitching -
-								// something not quite right.
-		m_peak = 0.0f;
-		m_gain = 1.0f;
-		m_holdLen = (long) (holdTime * scene.getFPS()); // Cannot be
-																// smaller than
-																// paBlock
-																// ::nFrames.
-		m_releaseLen = (long) (releaseTime * scene.getFPS());
-
-	}
-
-	/*
-	 * ~paLimiter() { paFree(m_bufferStart); }
-	 */
-
-	Block tick() {
-
-		FloatBuffer in = m_input.getStart();
-		FloatBuffer out = m_output.getStart();
-		float t;
-		float gainRate;
-		float gainTarget;
-		float peak;
-		int i;
-
-		// REPORTSTART
-
-		for (i = 0; i < scene.getNFrames(); i++) {
-
-			switch (m_state) {
-			case DIRECT:
-				while (i < scene.getNFrames()) {
-					t = in.get(i); // Need temp variable in case output = input.
-					out.put(i,m_bufferIO.get(i));
-					// REPORT
-					m_bufferIO.put(i, t); // Buffer for next
-																// time.
-
-					if ((peak = Math.abs(t)) > m_threshold) {
-						m_state = ATTACK;
-						m_peak = peak;
-						m_gain = 1.0f;
-						m_gainTarget = m_threshold / (m_peak + 0.5f); // Ensures
-																		// when
-																		// target
-																		// reached
-																		// output
-																		// is at
-																		// threshold
-																		// .
-						// RATEBOOST* gainRate moves kink a bit earlier..
-						// reduces glitch
-						m_gainRate = RATEBOOST * (m_gainTarget - m_gain)
-								/ m_bufferLen;
-						break;
-					}
-					i++;
-				}
-				break;
-
-			case ATTACK:
-				while (i <scene.getNFrames()) {
-					t = in.get(i);
-					m_gain += m_gainRate;
-					out.put(i, m_bufferIO.get(i) * m_gain);
-					// REPORT
-					/*
-					 * if(ABS(out[i]) > m_threshold) { int a=1; }
-					 */
-					m_bufferIO.put(i, t); // Buffer for next
-																// time.
-
-					if (m_gain <= m_gainTarget) // Target reached.
-					{
-						m_state = HOLD;
-						m_holdCount = m_holdLen;
-						m_peak = m_threshold / m_gain;
-						break;
-					}
-
-					if ((peak = Math.abs(t)) > m_threshold) {
-						gainTarget = m_threshold / (peak + 0.5f);
-						gainRate = RATEBOOST * (gainTarget - m_gain)
-								/ m_bufferLen;
-
-						if (gainRate < m_gainRate) // ie faster decrease
-													// neccessary to cover new
-													// peak.
-						{
-							m_gainTarget = gainTarget;
-							m_gainRate = gainRate;
-							m_peak = peak;
-						} else if (peak > m_peak) // Current attack extended to
-													// cover new peak.
-						{
-							m_gainTarget = gainTarget;
-							m_peak = peak;
-						}
-						// Otherwise current attack or the following hold will
-						// cover new peak.
-					}
-
-					i++;
-				}
-				break;
-
-			case HOLD:
-				while (i <scene.getNFrames()) {
-
-					t = in.get(i);
-					out.put(i, m_bufferIO.get(i) * m_gain);
-					// REPORT
-					m_bufferIO.put(i,t);
-
-					m_holdCount--;
-
-					if ((peak = Math.abs(t)) > m_threshold) {
-						if (peak <= m_peak) // Extend hold to cover new peak.
-						{
-							if (m_holdCount < m_bufferLen)
-								m_holdCount = m_bufferLen;
-						} else {
-							m_state = ATTACK; // Start new attack.
-							m_peak = peak;
-							m_gainTarget = m_threshold / (m_peak + 0.5f);
-							m_gainRate = RATEBOOST * (m_gainTarget - m_gain)
-									/ m_bufferLen;
-							break;
-						}
-					}
-
-					if (m_holdCount == 0) {
-						m_state = RELEASE;
-						m_gainRate = (1.0f - m_gain) / m_releaseLen;
-						break;
-					}
-
-					i++;
-				}
-				break;
-
-			case RELEASE:
-				while (i <scene.getNFrames()) {
-					t = in.get(i);
-					m_gain += m_gainRate;
-					out.put(i, m_bufferIO.get(i) * m_gain);
-
-					// REPORT
-					m_bufferIO.put(i,t);
-
-					if ((peak = Math.abs(t)) > m_threshold) {
-						gainTarget = m_threshold / (peak + 0.5f);
-						if ((gainTarget - m_gain) / m_bufferLen < m_gainRate) // ie
-																				// peak
-																				// is
-																				// not
-																				// currently
-																				// covered
-																				// .
-						{
-							if (gainTarget > m_gain) // Start new attack.
-							{
-								m_state = ATTACK;
-								m_peak = peak;
-								m_gainTarget = gainTarget;
-								m_gainRate = RATEBOOST
-										* (m_gainTarget - m_gain) / m_bufferLen;
-								break;
-							} else { // Start short hold.
-								m_state = HOLD;
-								m_peak = peak;
-								m_holdCount = m_bufferLen;
-								break;
-							}
-						}
-					}
-
-					if (m_gain >= 1.0f) {
-						m_state = DIRECT;
-						break;
-					}
-
-					i++;
-				}
-				break;
-
-			}
-		}
-		// REPORTSTOP
-		m_bufferIO.position(scene.getNFrames());//position relative to the last slice
-		m_bufferIO = m_bufferIO.slice();
-		if(m_bufferIO.capacity()<scene.getNFrames())//if we have gotten to the end of the buffer, start from the begining.
-			m_bufferIO = m_bufferStart.duplicate();
-
-	/*	m_bufferIO_position += Block.nFrames;
-		if (m_bufferIO_position >= m_bufferLen)
-			m_bufferIO_position = 0; // watch out, this could easily be wrong...
-*/		// if (m_bufferIO == m_bufferEnd) m_bufferIO = m_bufferStart;
-		return m_output;
-	}
-
-}
+/*
+Copyright (C) 2001, Dylan Menzies
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.jphya.scene.Scene;
+
+public class Limiter {
+
+	public static final int DIRECT = 0;
+	public static final int ATTACK = 1;
+	public static final int HOLD = 2;
+	public static final int RELEASE = 3;
+
+	private Block m_input;
+	private Block m_output;
+	private final int nChannels;
+	private boolean m_linked = true;
+	private int m_bufferLen; // Used for attack lookahead, in frames.
+	private float[] m_buffer; // Circular, interleaved like the samples.
+
+	private int m_bufferIO_position = 0; // Initial readout/readin point, in frames.
+
+	private float[] m_scratch; // Samples of direct io blocks, or of a bus, copied in and out in bulk.
+	private float[] m_peaks; // Peak of each frame of a channel group.
+	private float[] m_gains; // Gain applied to each frame of a channel group.
+	private float[] m_ones; // Delay line that turns the envelope's output into gains.
+
+	private float m_threshold; // Control parameters.
+	private long m_holdLen;
+	private long m_releaseLen;
+
+	/**
+	 * The gain envelope of a group of channels limited together.
+	 */
+	private static final class Envelope {
+		float gain = 1.0f;
+		float gainRate;
+		float gainTarget;
+		float peak = 0.0f;
+		long holdCount;
+		int state = DIRECT;
+	}
+
+	// One for each channel. Linked channels all use the first.
+	private final Envelope[] m_envelopes;
+
+	protected final Scene scene;
+	
+	public void setInput(Block input) {
+		m_input = input;
+	};
+
+	public void setOutput(Block output) {
+		m_output = output;
+	};
+
+	public void setThreshold(float t) {
+		m_threshold = t;
+	};
+
+	public void setHoldTime(float t) {
+		m_holdLen = (long) (t * scene.getFPS());
+	};
+
+	public void setReleaseTime(float t) {
+		m_releaseLen = (long) (t * scene.getFPS());
+	};
+
+	public int getNChannels() {
+		return nChannels;
+	}
+
+	public boolean isLinked() {
+		return m_linked;
+	}
+
+	/**
+	 * With several channels, linked channels are limited by the loudest of them and share one gain,
+	 * which keeps sounds where they are panned. Otherwise each channel is limited on its own.
+	 * Linked by default.
+	 */
+	public void setLinked(boolean linked) {
+		m_linked = linked;
+	}
+
+	public Block tick(Block input, Block output) {
+		m_input = input;
+		m_output = output;
+		return tick();
+	}
+
+	public Block tick(Block io) {
+		m_input = io;
+		m_output = io;
+		return tick();
+	}
+
+	Block getOutput() {
+		return m_output;
+	};
+
+	public final static float RATEBOOST = 2.0f;
+
+	// public final static float REPORT = check(out[i],m_threshold);
+	void check(float f, float t) {
+		if (f > t) {
+			// printf("limiter fail\n");
+		}
+	}
+
+	public Limiter(float attackTime, float holdTime, float releaseTime,Scene scene) {
+		this(attackTime, holdTime, releaseTime, scene, 1);
+	}
+
+	/**
+	 * A limiter for interleaved samples with the given number of channels, such as a scene's OutputBus.
+	 */
+	public Limiter(float attackTime, float holdTime, float releaseTime,Scene scene, int nChannels) {
+		this.scene = scene;
+		this.nChannels = nChannels;
+		m_input = null; // io blocks, user set.
+		m_output = null;
+
+		// Make buffer a multiple of blocks, to make buffer read write simpler.
+		m_bufferLen =  scene.getNFrames() * (1 + (int) (attackTime * scene.getFPSFrames()));
+		m_buffer = new float[m_bufferLen * nChannels]; // (float*)paCalloc(m_bufferLen,
+												// sizeof(float));
+		m_scratch = new float[scene.getNMaxFrames() * nChannels];
+		m_peaks = new float[scene.getNMaxFrames()];
+		m_gains = new float[scene.getNMaxFrames()];
+		m_ones = new float[scene.getNMaxFrames()];
+	
+		// m_bufferEnd = m_bufferStart + m_bufferLen;
+		// m_bufferStart = 0; // Initial readout/readin point.
+
+		m_envelopes = new Envelope[nChannels];
+		for (int c = 0; c < nChannels; c++)
+			m_envelopes[c] = new Envelope();
+		m_threshold = 20000; // 32767 //! Reduced to prevent glitching -
+								// something not quite right.
+		m_holdLen = (long) (holdTime * scene.getFPS()); // Cannot be
+																// smaller than
+																// paBlock
+																// ::nFrames.
+		m_releaseLen = (long) (releaseTime * scene.getFPS());
+
+	}
+
+	/*
+	 * ~paLimiter() { paFree(m_bufferStart); }
+	 */
+
+	Block tick() {
+		if (nChannels != 1)
+			throw new IllegalStateException("A multichannel limiter works on an OutputBus");
+
+		float[] in = m_input.getArray();
+		float[] out = m_output.getArray();
+		if (in == null) {
+			m_input.copyTo(m_scratch);
+			in = m_scratch;
+		}
+		boolean directOut = out == null;
+		if (directOut)
+			out = m_scratch; // Fine if it also holds the input, as for io blocks.
+
+		// REPORTSTART
+		limit(in, out, m_buffer, m_bufferIO_position, scene.getNFrames(), m_envelopes[0]);
+		// REPORTSTOP
+		if (directOut)
+			m_output.copyFrom(out);
+
+		advance();
+		return m_output;
+	}
+
+	/**
+	 * Limit the interleaved samples of a bus in place.
+	 */
+	public void tick(OutputBus bus) {
+		if (bus.getNChannels() != nChannels)
+			throw new IllegalArgumentException("Limiter has " + nChannels + " channels, bus has " + bus.getNChannels());
+		int nFrames = scene.getNFrames();
+		int n = nFrames * nChannels;
+		FloatBuffer samples = bus.getSamples();
+		samples.clear();
+		samples.get(m_scratch, 0, n);
+
+		if (nChannels == 1) {
+			limit(m_scratch, m_scratch, m_buffer, m_bufferIO_position, nFrames, m_envelopes[0]);
+		} else if (m_linked) {
+			limitGroup(m_scratch, nFrames, 0, nChannels, m_envelopes[0]);
+		} else {
+			for (int c = 0; c < nChannels; c++)
+				limitGroup(m_scratch, nFrames, c, 1, m_envelopes[c]);
+		}
+
+		samples.clear();
+		samples.put(m_scratch, 0, n);
+		samples.clear();
+		advance();
+	}
+
+	private void advance() {
+		m_bufferIO_position += scene.getNFrames();
+		if (m_bufferIO_position + scene.getNFrames() > m_bufferLen)//if we have gotten to the end of the buffer, start from the begining.
+			m_bufferIO_position = 0;
+		// if (m_bufferIO == m_bufferEnd) m_bufferIO = m_bufferStart;
+	}
+
+	/**
+	 * Limit a group of interleaved channels in place with one envelope. The envelope follows the peak of
+	 * each frame of the group, and is run through a delay line of ones so that what comes out of it is
+	 * the gain for each frame. The gains are then applied to the frames leaving the lookahead buffer.
+	 */
+	private void limitGroup(float[] samples, int nFrames, int first, int width, Envelope e) {
+		int stride = nChannels;
+		float[] peaks = m_peaks;
+		float[] gains = m_gains;
+		float[] ones = m_ones;
+
+		for (int i = 0, j = first; i < nFrames; i++, j += stride)
+			peaks[i] = Math.abs(samples[j]);
+		for (int c = first + 1; c < first + width; c++) {
+			for (int i = 0, j = c; i < nFrames; i++, j += stride)
+				peaks[i] = Math.max(peaks[i], Math.abs(samples[j]));
+		}
+		Arrays.fill(ones, 0, nFrames, 1.0f);
+		limit(peaks, gains, ones, 0, nFrames, e);
+
+		float[] buf = m_buffer;
+		int io = m_bufferIO_position * stride;
+		for (int c = first; c < first + width; c++) {
+			for (int i = 0, j = c; i < nFrames; i++, j += stride) {
+				float t = samples[j];
+				samples[j] = buf[io + j] * gains[i];
+				buf[io + j] = t;
+			}
+		}
+	}
+
+	/**
+	 * Limit mono samples, passing them through the delay line buf from io. The envelope state is kept in
+	 * locals while running and written back to e at the end. Each state runs over a span of samples in its
+	 * own loop, so the state is only dispatched when it changes. The direct span is found first and then
+	 * copied, and a hold span is bounded by the hold count, so neither tests the state per sample.
+	 */
+	private void limit(float[] in, float[] out, float[] buf, int io, int nFrames, Envelope e) {
+		float threshold = m_threshold;
+		int bufferLen = m_bufferLen;
+		float rateLen = bufferLen;
+
+		int state = e.state;
+		float gain = e.gain;
+		float gainRate = e.gainRate;
+		float gainTarget = e.gainTarget;
+		float peakLevel = e.peak;
+		long holdCount = e.holdCount;
+		float t;
+		float peak;
+
+		int i = 0;
+		while (i < nFrames) {
+			switch (state) {
+			case DIRECT: {
+				// The samples up to and including the first peak over the threshold pass straight through.
+				int end = i;
+				while (end < nFrames && !(Math.abs(in[end]) > threshold))
+					end++;
+				boolean over = end < nFrames;
+				if (over)
+					end++;
+				for (; i < end; i++) {
+					t = in[i]; // Need temp variable in case output = input.
+					out[i] = buf[io + i];
+					buf[io + i] = t; // Buffer for next time.
+				}
+				if (over) {
+					state = ATTACK;
+					peakLevel = Math.abs(buf[io + i - 1]);
+					gain = 1.0f;
+					// Ensures when target reached output is at threshold.
+					gainTarget = threshold / (peakLevel + 0.5f);
+					// RATEBOOST* gainRate moves kink a bit earlier..
+					// reduces glitch
+					gainRate = RATEBOOST * (gainTarget - gain) / rateLen;
+				}
+				break;
+			}
+
+			case ATTACK:
+				while (i < nFrames) {
+					gain += gainRate;
+					t = in[i];
+					out[i] = buf[io + i] * gain;
+					buf[io + i] = t;
+					peak = Math.abs(t);
+					i++;
+
+					if (gain <= gainTarget) // Target reached.
+					{
+						state = HOLD;
+						holdCount = m_holdLen;
+						peakLevel = threshold / gain;
+						break;
+					}
+
+					if (peak > threshold) {
+						float newTarget = threshold / (peak + 0.5f);
+						float newRate = RATEBOOST * (newTarget - gain) / rateLen;
+
+						if (newRate < gainRate) // ie faster decrease
+												// neccessary to cover new
+												// peak.
+						{
+							gainTarget = newTarget;
+							gainRate = newRate;
+							peakLevel = peak;
+						} else if (peak > peakLevel) // Current attack extended to
+														// cover new peak.
+						{
+							gainTarget = newTarget;
+							peakLevel = peak;
+						}
+						// Otherwise current attack or the following hold will
+						// cover new peak.
+					}
+				}
+				break;
+
+			case HOLD:
+				while (i < nFrames) {
+					// The samples until the hold ends, or the next peak over the threshold, only take the gain.
+					int end = holdCount > 0 ? i + (int) Math.min(holdCount, nFrames - i) : nFrames;
+					int start = i;
+					boolean over = false;
+					while (i < end) {
+						t = in[i];
+						out[i] = buf[io + i] * gain;
+						buf[io + i] = t;
+						i++;
+						if (Math.abs(t) > threshold) {
+							over = true;
+							break;
+						}
+					}
+					holdCount -= i - start;
+
+					if (over) {
+						peak = Math.abs(buf[io + i - 1]);
+						if (peak <= peakLevel) // Extend hold to cover new peak.
+						{
+							if (holdCount < bufferLen)
+								holdCount = bufferLen;
+						} else {
+							state = ATTACK; // Start new attack.
+							peakLevel = peak;
+							gainTarget = threshold / (peakLevel + 0.5f);
+							gainRate = RATEBOOST * (gainTarget - gain) / rateLen;
+							break;
+						}
+					}
+
+					if (holdCount == 0) {
+						state = RELEASE;
+						gainRate = (1.0f - gain) / m_releaseLen;
+						break;
+					}
+				}
+				break;
+
+			case RELEASE:
+				while (i < nFrames) {
+					gain += gainRate;
+					t = in[i];
+					out[i] = buf[io + i] * gain;
+					buf[io + i] = t;
+					peak = Math.abs(t);
+					i++;
+
+					if (peak > threshold) {
+						float newTarget = threshold / (peak + 0.5f);
+						if ((newTarget - gain) / rateLen < gainRate) // ie peak is not currently covered.
+						{
+							if (newTarget > gain) // Start new attack.
+							{
+								state = ATTACK;
+								peakLevel = peak;
+								gainTarget = newTarget;
+								gainRate = RATEBOOST * (gainTarget - gain) / rateLen;
+								break;
+							} else { // Start short hold.
+								state = HOLD;
+								peakLevel = peak;
+								holdCount = bufferLen;
+								break;
+							}
+						}
+					}
+
+					if (gain >= 1.0f) {
+						state = DIRECT;
+						break;
+					}
+				}
+				break;
+
+			}
+		}
+
+		e.state = state;
+		e.gain = gain;
+		e.gainRate = gainRate;
+		e.gainTarget = gainTarget;
+		e.peak = peakLevel;
+		e.holdCount = holdCount;
+	}
+
+}
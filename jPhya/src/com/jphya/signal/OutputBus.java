@@ -0,0 +1,155 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+
+import com.jphya.scene.Scene;
+
+/**
+ * The output of a multichannel scene: interleaved frames of float samples, in a direct buffer that is handed
+ * to the output stream as it is.
+ * <p>
+ * Mono blocks are mixed in with a constant power pan. Each channel costs one multiply-add per sample,
+ * and channels the pan leaves silent are skipped.
+ * @author Sam
+ *
+ */
+public class OutputBus {
+
+	private final Scene scene;
+	private final int nChannels;
+	private final ByteBuffer m_bytes;
+	private final FloatBuffer m_samples;
+	private final float[] m_gainsStart;
+	private final float[] m_gainsEnd;
+
+	public OutputBus(Scene scene, int nChannels) {
+		this.scene = scene;
+		this.nChannels = nChannels;
+		m_bytes = ByteBuffer.allocateDirect(scene.getNMaxFrames() * nChannels * Float.SIZE / Byte.SIZE).order(ByteOrder.nativeOrder());
+		m_samples = m_bytes.asFloatBuffer();
+		m_gainsStart = new float[nChannels];
+		m_gainsEnd = new float[nChannels];
+	}
+
+	public int getNChannels() {
+		return nChannels;
+	}
+
+	/**
+	 * Fill gains with the channel gains for a pan position, from -1 (the first channel) to 1 (the last).
+	 * The sound is placed between the two nearest channels, with gains cos and sin of the position between them,
+	 * so that the power is the same wherever it is. Mono gets a gain of 1.
+	 */
+	public static void panGains(float pan, float[] gains, int nChannels) {
+		Arrays.fill(gains, 0, nChannels, 0f);
+		if (nChannels == 1) {
+			gains[0] = 1f;
+			return;
+		}
+		if (pan < -1f)
+			pan = -1f;
+		else if (pan > 1f)
+			pan = 1f;
+		float position = (pan + 1f) * 0.5f * (nChannels - 1);
+		int channel = Math.min((int) position, nChannels - 2);
+		double angle = (position - channel) * Math.PI * 0.5;
+		gains[channel] = (float) Math.cos(angle);
+		gains[channel + 1] = (float) Math.sin(angle);
+	}
+
+	public void zero() {
+		int n = scene.getNFrames() * nChannels;
+		for (int i = 0; i < n; i++)
+			m_samples.put(i, 0f);
+	}
+
+	/**
+	 * Mix in a mono block, panned. The gains are ramped over the block from those of panStart
+	 * to those of panEnd, so that moving sounds don't click.
+	 */
+	public void addPanned(Block in, float panStart, float panEnd) {
+		if (in.isZero())
+			return;
+		panGains(panStart, m_gainsStart, nChannels);
+		panGains(panEnd, m_gainsEnd, nChannels);
+
+		float invFrames = 1f / in.getNFrames();
+		int start = in.getLiveStart();
+		int end = in.getLiveEnd();
+		float[] a = in.getLiveArray();
+		FloatBuffer b = a == null ? in.getLiveBuffer() : null;
+		FloatBuffer out = m_samples;
+		for (int c = 0; c < nChannels; c++) {
+			float gain = m_gainsStart[c];
+			float slope = (m_gainsEnd[c] - gain) * invFrames;
+			if (gain == 0f && slope == 0f)
+				continue;
+			if (a != null) {
+				for (int i = start; i < end; i++) {
+					int j = i * nChannels + c;
+					out.put(j, out.get(j) + (gain + slope * i) * a[i]);
+				}
+			} else {
+				for (int i = start; i < end; i++) {
+					int j = i * nChannels + c;
+					out.put(j, out.get(j) + (gain + slope * i) * b.get(i));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The interleaved samples of the current block, as native order bytes for the output stream.
+	 */
+	public ByteBuffer getBytes() {
+		m_bytes.clear();
+		m_bytes.limit(scene.getNFrames() * nChannels * Float.SIZE / Byte.SIZE);
+		return m_bytes;
+	}
+
+	/**
+	 * The interleaved samples of the current block.
+	 */
+	public FloatBuffer getSamples() {
+		return m_samples;
+	}
+
+	/**
+	 * Put n frames, starting at frame 'from', into dst at its position.
+	 */
+	public void copyTo(FloatBuffer dst, int from, int n) {
+		m_samples.limit((from + n) * nChannels);
+		m_samples.position(from * nChannels);
+		dst.put(m_samples);
+		m_samples.clear();
+	}
+
+}
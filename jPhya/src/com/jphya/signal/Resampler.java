@@ -0,0 +1,215 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Converts interleaved audio from one sample rate to another with a polyphase windowed-sinc filter,
+ * so that a scene can synthesize at a lower rate than its output stream.
+ * <p>
+ * The rates must be in a ratio up/down with up no more than MAX_PHASES, after dividing by their greatest
+ * common divisor. There is one set of filter taps for each of the 'up' phases, and each output frame costs
+ * one short dot product per channel. The filter cuts off just below the lower of the two Nyquist frequencies.
+ * The output is delayed by half the filter length, a few input frames.
+ * @author Sam
+ *
+ */
+public class Resampler {
+
+	public static final int MAX_PHASES = 1024;
+
+	private static final int ZERO_CROSSINGS = 32; // On each side of the centre of the filter.
+	private static final float PASSBAND = 0.9f; // Cutoff, as a fraction of the lower Nyquist frequency.
+
+	private final int nChannels;
+	private final int up;
+	private final int down;
+	private final int nTaps;
+	private final float[][] m_taps; // Per phase, to apply to input frames from the oldest.
+
+	private final float[] m_in; // Interleaved input frames still needed by the filter.
+	private final FloatBuffer m_inBuffer;
+	private int m_inFrames;
+	private long m_time; // Time of the next output frame, in 1/up input frames from the start of m_in.
+
+	private final ByteBuffer m_bytes;
+	private final FloatBuffer m_out;
+	private int m_outFrames;
+
+	/**
+	 * @param maxInFrames the most frames that will be passed to each process()
+	 */
+	public Resampler(int inRate, int outRate, int nChannels, int maxInFrames) {
+		int gcd = gcd(inRate, outRate);
+		up = outRate / gcd;
+		down = inRate / gcd;
+		if (up > MAX_PHASES)
+			throw new IllegalArgumentException("Rates " + inRate + " and " + outRate + " are not in a simple enough ratio");
+		this.nChannels = nChannels;
+
+		// The filter spans ZERO_CROSSINGS periods of the cutoff on each side, counted in input frames.
+		int halfTaps = (int) Math.ceil(ZERO_CROSSINGS * Math.max(1f, (float) down / up));
+		halfTaps += halfTaps & 1; // A multiple of 4 taps in all.
+		nTaps = 2 * halfTaps;
+		m_taps = design(halfTaps);
+
+		m_in = new float[(nTaps + maxInFrames) * nChannels];
+		m_inBuffer = FloatBuffer.wrap(m_in);
+		// Start with silence before the first frame, so that the first output frame can be centred on it.
+		m_inFrames = halfTaps - 1;
+		m_time = (long) m_inFrames * up;
+
+		int maxOutFrames = (int) ((long) maxInFrames * up / down) + 2;
+		m_bytes = ByteBuffer.allocateDirect(maxOutFrames * nChannels * Float.SIZE / Byte.SIZE).order(ByteOrder.nativeOrder());
+		m_out = m_bytes.asFloatBuffer();
+	}
+
+	private static int gcd(int a, int b) {
+		while (b != 0) {
+			int t = a % b;
+			a = b;
+			b = t;
+		}
+		return a;
+	}
+
+	/**
+	 * Blackman windowed sinc taps, normalised so that each phase passes DC at unit gain.
+	 */
+	private float[][] design(int halfTaps) {
+		double cutoff = 0.5 * PASSBAND * Math.min(1.0, (double) up / down); // Cycles per input frame.
+		float[][] taps = new float[up][nTaps];
+		for (int p = 0; p < up; p++) {
+			double sum = 0;
+			for (int k = 0; k < nTaps; k++) {
+				// Distance of the output frame from input frame k, in input frames.
+				double x = (double) p / up + halfTaps - 1 - k;
+				double arg = 2 * cutoff * x;
+				double sinc = arg == 0 ? 1 : Math.sin(Math.PI * arg) / (Math.PI * arg);
+				double u = x / halfTaps;
+				double window = 0.42 + 0.5 * Math.cos(Math.PI * u) + 0.08 * Math.cos(2 * Math.PI * u);
+				double h = sinc * window;
+				taps[p][k] = (float) h;
+				sum += h;
+			}
+			for (int k = 0; k < nTaps; k++)
+				taps[p][k] /= sum;
+		}
+		return taps;
+	}
+
+	public int getNChannels() {
+		return nChannels;
+	}
+
+	/**
+	 * Return a buffer to write the next 'frames' input frames into, interleaved, from its position.
+	 * Then call process().
+	 */
+	public FloatBuffer getInput(int frames) {
+		m_inBuffer.limit((m_inFrames + frames) * nChannels);
+		m_inBuffer.position(m_inFrames * nChannels);
+		return m_inBuffer;
+	}
+
+	/**
+	 * Resample the frames written through getInput(), and return the number of output frames made.
+	 * They stay in the output buffer until the next call.
+	 */
+	public int process(int frames) {
+		m_inFrames += frames;
+		int half = nTaps / 2;
+		int n = 0;
+		float[] in = m_in;
+		while (true) {
+			long frame = m_time / up;
+			if (frame + half >= m_inFrames)
+				break;
+			float[] taps = m_taps[(int) (m_time - frame * up)];
+			int oldest = (int) frame - half + 1;
+			if (nChannels == 1) {
+				// Four sums, as the JIT will not reorder float additions to overlap them.
+				float acc0 = 0f, acc1 = 0f, acc2 = 0f, acc3 = 0f;
+				for (int k = 0; k < nTaps; k += 4) {
+					acc0 += taps[k] * in[oldest + k];
+					acc1 += taps[k + 1] * in[oldest + k + 1];
+					acc2 += taps[k + 2] * in[oldest + k + 2];
+					acc3 += taps[k + 3] * in[oldest + k + 3];
+				}
+				m_out.put(n, (acc0 + acc1) + (acc2 + acc3));
+			} else {
+				for (int c = 0; c < nChannels; c++) {
+					float acc = 0f;
+					int j = oldest * nChannels + c;
+					for (int k = 0; k < nTaps; k++) {
+						acc += taps[k] * in[j];
+						j += nChannels;
+					}
+					m_out.put(n * nChannels + c, acc);
+				}
+			}
+			n++;
+			m_time += down;
+		}
+
+		// Drop the input frames that no later output frame reaches.
+		int drop = (int) (m_time / up) - half + 1;
+		if (drop > 0) {
+			m_inFrames -= drop;
+			System.arraycopy(in, drop * nChannels, in, 0, m_inFrames * nChannels);
+			m_time -= (long) drop * up;
+		}
+		m_outFrames = n;
+		return n;
+	}
+
+	/**
+	 * The output frames made by the last process(), as native order bytes for an output stream.
+	 */
+	public ByteBuffer getBytes() {
+		m_bytes.clear();
+		m_bytes.limit(m_outFrames * nChannels * Float.SIZE / Byte.SIZE);
+		return m_bytes;
+	}
+
+	public FloatBuffer getSamples() {
+		return m_out;
+	}
+
+	/**
+	 * Put n output frames, starting at frame 'from', into dst at its position.
+	 */
+	public void copyTo(FloatBuffer dst, int from, int n) {
+		m_out.limit((from + n) * nChannels);
+		m_out.position(from * nChannels);
+		dst.put(m_out);
+		m_out.clear();
+	}
+
+}
@@ -0,0 +1,95 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+/**
+ * Plain loops, which C2 may still unroll or auto-vectorize.
+ * @author Sam
+ *
+ */
+final class ScalarBlockKernels extends BlockKernels {
+
+	private static final float PI = (float) Math.PI;
+
+	public String getName() {
+		return "scalar";
+	}
+
+	public void add(float[] dst, float[] src, int from, int to) {
+		for (int i = from; i < to; i++)
+			dst[i] += src[i];
+	}
+
+	public void addWithMultiply(float[] dst, float[] src, float multfactor, int from, int to) {
+		for (int i = from; i < to; i++)
+			dst[i] += src[i] * multfactor;
+	}
+
+	public void copyWithMultiply(float[] dst, float[] src, float multfactor, int from, int to) {
+		for (int i = from; i < to; i++)
+			dst[i] = src[i] * multfactor;
+	}
+
+	public void multiplyBy(float[] dst, float multfactor, int from, int to) {
+		for (int i = from; i < to; i++)
+			dst[i] *= multfactor;
+	}
+
+	public void square(float[] dst, int from, int to) {
+		for (int i = from; i < to; i++)
+			dst[i] = dst[i] * dst[i];
+	}
+
+	public void fadeout(float[] dst, int from, int to, int nFrames) {
+		float incr = -1f / ((float) nFrames);
+		float mult = 1.0f;
+		for (int i = 0; i < from; i++)
+			mult += incr; // Sum the increment as a whole block fade would.
+		for (int i = from; i < to; i++) {
+			dst[i] *= mult;
+			mult += incr;
+		}
+	}
+
+	public void inverseDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to) {
+		for (int i = from; i < to; i++) {
+			float dist = slope * ((float) i) + distanceStart;
+			if (dist < minDistance)
+				dist = 1f;
+			dst[i] = dst[i] / dist;
+		}
+	}
+
+	public void inverseSquareDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to) {
+		for (int i = from; i < to; i++) {
+			float dist = slope * ((float) i) + distanceStart;
+			if (dist < minDistance)
+				dist = 1f;
+			dst[i] = dst[i] / (dist * dist * 4 * PI);
+		}
+	}
+
+}
@@ -1,90 +1,88 @@
-/*
-Copyright (c) 2009, Sam Bayless
-All rights reserved.
-
-Redistribution and use in source and binary forms, with or without modification,
- are permitted provided that the following conditions are met:
-
- * Redistributions of source code must retain the above copyright notice, 
-   this list of conditions and the following disclaimer.
- * Redistributions in binary form must reproduce the above copyright notice, 
-   this list of conditions and the following disclaimer in the documentation and/or 
-   other materials provided with the distribution.
- * Neither the name of 'JPhya' nor the names of its contributors may be used 
-   to endorse or promote products derived from this software without specific prior written permission.
-
-THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
-OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
-AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
-CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
-DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
-LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
-WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
-OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
- */
-
-package com.jphya.utility;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
-
-/**
- * This class allows for efficient memory management, to avoid excessive object creation
- * @author Sam
- *
- */
-public class AllocationManager {
-	private Map<Class<?>,ArrayList<?>> allocationSets = new HashMap<Class<?>,ArrayList<?>>();
-	
-	/**
-	 * Return an object from the previously created stores, IF it exists, otherwise return null.
-	 * @param <E>
-	 * @param objectClass
-	 * @return
-	 */
-	@SuppressWarnings("unchecked")
-	public <E> E acquireObject(Class<E> objectClass)
-	{
-		ArrayList<E> list = (ArrayList<E>) allocationSets.get(objectClass);
-		if (list == null)
-		{
-			list =(ArrayList<E> ) new ArrayList<Object>();
-			allocationSets.put(objectClass, list);
-		}
-		
-		if (list.isEmpty())
-		{
-			return null;
-		}
-		
-		return list.remove(list.size()-1);
-	}
-	
-	/**
-	 * Return an object to the pool for future use. It is the responsibility of the user to ensure
-	 * that no outside references are retained to the ojbect; unspecified behaviour occurs otherwise.
-	 * @param <E>
-	 * @param object
-	 */
-	@SuppressWarnings("unchecked")
-	public  <E> void returnObject(E object)
-	{
-		ArrayList<E> list = (ArrayList<E>) allocationSets.get(object.getClass());
-		if (list == null)
-		{
-			list =(ArrayList<E> ) new ArrayList<Object>();
-			allocationSets.put(object.getClass(), list);
-		}
-		list.add(object);
-	}
-	/**
-	 * Release all allocated objects for garbage collection
-	 */
-	public void clear()
-	{
-		allocationSets.clear();
-	}
-
-
-}
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.utility;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * This class allows for efficient memory management, to avoid excessive object creation.
+ * It is lock free, so objects may be acquired and returned by the audio thread and user threads at once.
+ * @author Sam
+ *
+ */
+public class AllocationManager {
+	private ConcurrentMap<Class<?>,Deque<?>> allocationSets = new ConcurrentHashMap<Class<?>,Deque<?>>();
+	
+	/**
+	 * Return an object from the previously created stores, IF it exists, otherwise return null.
+	 * @param <E>
+	 * @param objectClass
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public <E> E acquireObject(Class<E> objectClass)
+	{
+		Deque<E> list = (Deque<E>) allocationSets.get(objectClass);
+		if (list == null)
+		{
+			return null;
+		}
+		
+		return list.pollFirst();
+	}
+	
+	/**
+	 * Return an object to the pool for future use. It is the responsibility of the user to ensure
+	 * that no outside references are retained to the ojbect; unspecified behaviour occurs otherwise.
+	 * @param <E>
+	 * @param object
+	 */
+	@SuppressWarnings("unchecked")
+	public  <E> void returnObject(E object)
+	{
+		Deque<E> list = (Deque<E>) allocationSets.get(object.getClass());
+		if (list == null)
+		{
+			list =(Deque<E> ) new ConcurrentLinkedDeque<Object>();
+			Deque<E> existing = (Deque<E>) allocationSets.putIfAbsent(object.getClass(), list);
+			if (existing != null)
+				list = existing;
+		}
+		list.addFirst(object);
+	}
+	/**
+	 * Release all allocated objects for garbage collection
+	 */
+	public void clear()
+	{
+		allocationSets.clear();
+	}
+
+
+}
@@ -0,0 +1,161 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.utility;
+
+import java.util.AbstractCollection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A dense, array backed set in which each member remembers its own position.
+ * Add, remove and contains are constant time, and members can be visited by index without creating an iterator.
+ * Removal moves the last member into the freed slot, so the order of members is not preserved.
+ * An object may be a member of only one IndexedList at a time.
+ * @author Sam
+ *
+ * @param <E>
+ */
+public class IndexedList<E extends IndexedList.Member> extends AbstractCollection<E> {
+	
+	/**
+	 * Implemented by objects that can be stored in an IndexedList.
+	 * The index should be -1 when the object is not in a list.
+	 */
+	public interface Member
+	{
+		public int getListIndex();
+		public void setListIndex(int index);
+	}
+	
+	private Member[] elements = new Member[16];
+	private int size = 0;
+	
+	@Override
+	public boolean add(E e)
+	{
+		if (contains(e))
+			return false;
+		
+		if (size == elements.length)
+		{
+			Member[] grown = new Member[elements.length*2];
+			System.arraycopy(elements, 0, grown, 0, size);
+			elements = grown;
+		}
+		elements[size] = e;
+		e.setListIndex(size);
+		size++;
+		return true;
+	}
+	
+	@Override
+	public boolean remove(Object o)
+	{
+		if (!contains(o))
+			return false;
+		
+		removeAt(((Member) o).getListIndex());
+		return true;
+	}
+	
+	private void removeAt(int index)
+	{
+		Member removed = elements[index];
+		size--;
+		if (index != size)
+		{
+			Member last = elements[size];
+			elements[index] = last;
+			last.setListIndex(index);
+		}
+		elements[size] = null;
+		removed.setListIndex(-1);
+	}
+	
+	@Override
+	public boolean contains(Object o)
+	{
+		if (!(o instanceof Member))
+			return false;
+		int index = ((Member) o).getListIndex();
+		return index >= 0 && index < size && elements[index] == o;
+	}
+	
+	/**
+	 * Return the member in the given slot, 0 <= index < size().
+	 */
+	@SuppressWarnings("unchecked")
+	public E get(int index)
+	{
+		return (E) elements[index];
+	}
+	
+	@Override
+	public int size()
+	{
+		return size;
+	}
+	
+	@Override
+	public void clear()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			elements[i].setListIndex(-1);
+			elements[i] = null;
+		}
+		size = 0;
+	}
+	
+	@Override
+	public Iterator<E> iterator()
+	{
+		return new Iterator<E>(){
+			private int next = 0;
+			private int last = -1;
+			
+			public boolean hasNext() {
+				return next < size;
+			}
+			
+			public E next() {
+				if (next >= size)
+					throw new NoSuchElementException();
+				last = next++;
+				return get(last);
+			}
+			
+			public void remove() {
+				if (last < 0)
+					throw new IllegalStateException();
+				removeAt(last);
+				// The last member has moved into the removed slot, so visit that slot again.
+				next = last;
+				last = -1;
+			}
+		};
+	}
+}
@@ -0,0 +1,166 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.test;
+
+import java.util.Random;
+
+import com.jphya.distance.DistanceModel;
+import com.jphya.signal.BlockKernels;
+
+/**
+ * Checks the block kernels in use against the scalar kernels, over a range of block lengths and offsets that
+ * cover the vector loop, its scalar tail, and both together.
+ * Run with jphya-vector.jar on the class path and --add-modules jdk.incubator.vector to test the Vector API kernels.
+ * @author Sam
+ *
+ */
+public class TestBlockKernels {
+
+	private static final int[] LENGTHS = { 0, 1, 3, 4, 7, 8, 15, 16, 17, 31, 32, 33, 64, 100, 127, 128, 129, 256, 1000 };
+	private static final float[] FACTORS = { 0.5f, -1.25f, 1e-3f, 3e4f, 1f };
+
+	private static final Random random = new Random(42);
+	private static int failures = 0;
+
+	public static void main(String[] args) {
+		BlockKernels kernels = BlockKernels.get();
+		BlockKernels scalar = BlockKernels.scalar();
+		System.out.println("Testing " + kernels.getName() + " kernels against " + scalar.getName());
+		if (kernels == scalar)
+			System.out.println("Vector kernels not available, only the scalar kernels will be exercised.");
+
+		for (int n : LENGTHS) {
+			// Whole blocks, and live ranges that start part way through.
+			for (int from : new int[] { 0, n / 3 }) {
+				float[] src = samples(n + 3);
+				for (float f : FACTORS) {
+					float[] a = samples(n + 3);
+					float[] b = a.clone();
+					kernels.addWithMultiply(a, src, f, from, n);
+					scalar.addWithMultiply(b, src, f, from, n);
+					check("addWithMultiply", from, n, a, b);
+
+					a = samples(n + 3);
+					b = a.clone();
+					kernels.copyWithMultiply(a, src, f, from, n);
+					scalar.copyWithMultiply(b, src, f, from, n);
+					check("copyWithMultiply", from, n, a, b);
+
+					a = samples(n + 3);
+					b = a.clone();
+					kernels.multiplyBy(a, f, from, n);
+					scalar.multiplyBy(b, f, from, n);
+					check("multiplyBy", from, n, a, b);
+				}
+
+				float[] a = samples(n + 3);
+				float[] b = a.clone();
+				kernels.add(a, src, from, n);
+				scalar.add(b, src, from, n);
+				check("add", from, n, a, b);
+
+				a = samples(n + 3);
+				b = a.clone();
+				kernels.square(a, from, n);
+				scalar.square(b, from, n);
+				check("square", from, n, a, b);
+
+				a = samples(n + 3);
+				b = a.clone();
+				float[] unfaded = a.clone();
+				kernels.fadeout(a, from, n, n);
+				scalar.fadeout(b, from, n, n);
+				check("fadeout", from, n, a, b, unfaded, 1e-5f); // The scalar gain accumulates rounding error.
+
+				// Ramps that start, end, or stay under the minimum distance.
+				float[][] ramps = { { 0.5f, 10f }, { 20f, 0f }, { 0f, 0f }, { 1e-4f, 2e-3f }, { 3f, 3f } };
+				for (float[] ramp : ramps) {
+					float slope = n == 0 ? 0f : (ramp[1] - ramp[0]) / n;
+					a = samples(n + 3);
+					b = a.clone();
+					kernels.inverseDistance(a, ramp[0], slope, DistanceModel.minimnumDistance, from, n);
+					scalar.inverseDistance(b, ramp[0], slope, DistanceModel.minimnumDistance, from, n);
+					check("inverseDistance", from, n, a, b);
+
+					a = samples(n + 3);
+					b = a.clone();
+					kernels.inverseSquareDistance(a, ramp[0], slope, DistanceModel.minimnumDistance, from, n);
+					scalar.inverseSquareDistance(b, ramp[0], slope, DistanceModel.minimnumDistance, from, n);
+					check("inverseSquareDistance", from, n, a, b);
+				}
+			}
+		}
+
+		if (failures > 0) {
+			System.out.println(failures + " failures");
+			System.exit(1);
+		}
+		System.out.println("All kernels match");
+	}
+
+	/**
+	 * Mixed sign audio-range samples, with some zeros and tiny values.
+	 */
+	private static float[] samples(int n) {
+		float[] s = new float[n];
+		for (int i = 0; i < n; i++) {
+			switch (random.nextInt(8)) {
+			case 0:
+				s[i] = 0f;
+				break;
+			case 1:
+				s[i] = (random.nextFloat() - 0.5f) * 1e-30f;
+				break;
+			default:
+				s[i] = (random.nextFloat() * 2f - 1f) * 32767f;
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * Check the results are bit-identical, and nothing outside [from, n) was written.
+	 */
+	private static void check(String kernel, int from, int n, float[] actual, float[] expected) {
+		check(kernel, from, n, actual, expected, expected, 0f);
+	}
+
+	/**
+	 * Check the results match to within the tolerance relative to the scale, and nothing outside [from, n) was written.
+	 */
+	private static void check(String kernel, int from, int n, float[] actual, float[] expected, float[] scale, float tolerance) {
+		for (int i = 0; i < actual.length; i++) {
+			boolean same = tolerance == 0f ? Float.floatToIntBits(actual[i]) == Float.floatToIntBits(expected[i])
+					: Math.abs(actual[i] - expected[i]) <= tolerance * Math.abs(scale[i]) + Float.MIN_NORMAL;
+			if (!same) {
+				failures++;
+				System.out.println(kernel + " [" + from + ", " + n + ") differs at " + i + ": " + actual[i] + " != " + expected[i]
+						+ (i < from || i >= n ? " (outside the range)" : ""));
+				return;
+			}
+		}
+	}
+}
@@ -0,0 +1,331 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import com.jphya.audio.DummyAudioOutputStream;
+import com.jphya.body.Body;
+import com.jphya.resonator.ModalBank;
+import com.jphya.resonator.ModalData;
+import com.jphya.resonator.ModalResonator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * Checks that modal resonators ticked by the scene's ModalBank give exactly the same output as the same
+ * resonators ticking their own modes, as they join and leave the bank and change their number of modes,
+ * and that changes to bank membership made on other threads wait for the audio thread. Modes above the
+ * Nyquist frequency must not be run.
+ * @author Sam
+ *
+ */
+public class TestModalBank {
+
+	private static final int PAIRS = 5;
+	private static final int BLOCKS = 300;
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws InterruptedException {
+		testEquivalence();
+		testDeferred();
+		testNyquist();
+		testSceneCulling();
+
+		if (failures > 0) {
+			System.out.println(failures + " failures");
+			System.exit(1);
+		}
+		System.out.println("ModalBank matches the resonators");
+	}
+
+	/**
+	 * Each banked resonator has a twin that never joins the bank. Both get the same input and the same changes,
+	 * and their outputs must be bit-identical every block.
+	 */
+	private static void testEquivalence() {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		// Offline, coefficients are installed on the block they change, rather than when the cache's worker
+		// happens to finish them, which could be a block apart for the two twins.
+		scene.setRealtime(false);
+		scene.tick(); // Makes this the audio thread.
+		ModalBank bank = scene.getModalBank();
+
+		ModalResonator[] banked = new ModalResonator[PAIRS];
+		ModalResonator[] separate = new ModalResonator[PAIRS];
+		for (int i = 0; i < PAIRS; i++) {
+			ModalData data = modalData(8 + 7 * i, i);
+			banked[i] = newResonator(scene, data, i);
+			separate[i] = newResonator(scene, data, i);
+			banked[i].activate();
+		}
+		check("all in the bank", bank.getNResonators() == PAIRS);
+		ModalData other = modalData(13, 99);
+
+		for (int b = 0; b < BLOCKS; b++) {
+			switch (b) {
+			case 50:
+				banked[1].deactivate(); // Leaves the bank, keeping its state.
+				check("left the bank", bank.getNResonators() == PAIRS - 1);
+				break;
+			case 80:
+				banked[1].activate(); // Starts again from rest.
+				separate[1].zero();
+				check("rejoined the bank", bank.getNResonators() == PAIRS);
+				break;
+			case 100:
+				banked[2].setnActiveModes(banked[2].getnModeLimit() / 2);
+				separate[2].setnActiveModes(separate[2].getnModeLimit() / 2);
+				break;
+			case 140:
+				banked[2].setnActiveModes(modes(2));
+				separate[2].setnActiveModes(modes(2));
+				break;
+			case 170:
+				banked[3].setData(other);
+				separate[3].setData(other);
+				break;
+			case 200:
+				banked[0].deactivate(); // Leaving from the front of the bank moves the others' segments.
+				banked[4].deactivate();
+				break;
+			case 210:
+				banked[4].activate();
+				separate[4].zero();
+				break;
+			}
+
+			for (int i = 0; i < PAIRS; i++) {
+				excite(banked[i], i, b);
+				excite(separate[i], i, b);
+				banked[i].getOutput().zero();
+				separate[i].getOutput().zero();
+			}
+
+			bank.tick();
+			for (int i = 0; i < PAIRS; i++) {
+				FloatBuffer a = banked[i].tickAdd().getStart();
+				FloatBuffer s = separate[i].tickAdd().getStart();
+				compare(b, i, a, s, scene.getNFrames());
+			}
+		}
+	}
+
+	/**
+	 * Bank membership changed on another thread waits for the start of the next tick.
+	 */
+	private static void testDeferred() throws InterruptedException {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.tick();
+		final ModalResonator res = newResonator(scene, modalData(10, 7), 0);
+		res.setQuietLevel(0f); // So that the scene doesn't deactivate it when it ticks it.
+		Body body = new Body();
+		body.setResonator(res);
+		ModalBank bank = scene.getModalBank();
+
+		Thread activator = new Thread() {
+			public void run() {
+				res.activate();
+			}
+		};
+		activator.start();
+		activator.join();
+		check("activation deferred", bank.getNResonators() == 0);
+		scene.tick();
+		check("activated at tick", bank.getNResonators() == 1 && res.isActive());
+
+		Thread deactivator = new Thread() {
+			public void run() {
+				res.deactivate();
+				res.setnActiveModes(5);
+			}
+		};
+		deactivator.start();
+		deactivator.join();
+		check("deactivation deferred", bank.getNResonators() == 1 && res.getnActiveModes() == 10);
+		scene.tick();
+		check("deactivated at tick", bank.getNResonators() == 0 && !res.isActive() && res.getnActiveModes() == 5);
+	}
+
+	/**
+	 * Modes at or above the Nyquist frequency are left out of the live modes, with or without the bank, and
+	 * come back when the frequency scale brings them below it.
+	 */
+	private static void testNyquist() {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.setRealtime(false); // Coefficients are installed straight away.
+		scene.tick();
+		ModalBank bank = scene.getModalBank();
+		float fps = scene.getFPS();
+		float[] freqs = { 0.02f * fps, 0.1f * fps, 0.3f * fps, 0.45f * fps, 0.7f * fps };
+		ModalData data = modalData(freqs);
+		ModalResonator banked = newResonator(scene, data, 0);
+		ModalResonator separate = newResonator(scene, data, 0);
+		banked.activate();
+
+		float[] scales = { 1f, 1.5f, 0.5f, 3f };
+		for (int b = 0; b < 40 * scales.length; b++) {
+			float scale = scales[b / 40];
+			if (b % 40 == 0) {
+				banked.setAuxFreqScale(scale);
+				separate.setAuxFreqScale(scale);
+			}
+			excite(banked, 0, b);
+			excite(separate, 0, b);
+			banked.getOutput().zero();
+			separate.getOutput().zero();
+
+			bank.tick();
+			FloatBuffer a = banked.tickAdd().getStart();
+			FloatBuffer s = separate.tickAdd().getStart();
+			compare(b, 0, a, s, scene.getNFrames());
+
+			int audible = 0;
+			for (float f : freqs) {
+				if (f * scale / fps < 0.5f)
+					audible++;
+			}
+			check("live modes below Nyquist at scale " + scale + ", block " + b,
+					banked.getNLiveModes() == audible && separate.getNLiveModes() == audible);
+		}
+	}
+
+	/**
+	 * The scene's mode quiet and mask levels leave out the quiet modes of resonators that don't set their own,
+	 * and new input wakes them all.
+	 */
+	private static void testSceneCulling() {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.setRealtime(false);
+		scene.tick();
+		scene.setModeQuietLevel(0.05f);
+		scene.setModeMaskLevel(1e-3f);
+		ModalBank bank = scene.getModalBank();
+		ModalResonator banked = newResonator(scene, modalData(20, 3), 0);
+		ModalResonator separate = newResonator(scene, modalData(20, 3), 0);
+		banked.activate();
+
+		for (int b = 0; b < 200; b++) {
+			excite(banked, 0, b == 0 || b == 150 ? 0 : 1);
+			excite(separate, 0, b == 0 || b == 150 ? 0 : 1);
+			banked.getOutput().zero();
+			separate.getOutput().zero();
+
+			bank.tick();
+			FloatBuffer a = banked.tickAdd().getStart();
+			FloatBuffer s = separate.tickAdd().getStart();
+			compare(b, 0, a, s, scene.getNFrames());
+			if (b == 149)
+				check("scene culls quiet modes", banked.getNLiveModes() < 20 && separate.getNLiveModes() < 20);
+			if (b == 150)
+				check("input wakes culled modes", banked.getNLiveModes() == 20 && separate.getNLiveModes() == 20);
+		}
+	}
+
+	private static ModalResonator newResonator(Scene scene, ModalData data, int i) {
+		ModalResonator res = new ModalResonator(scene);
+		res.setData(data);
+		res.setAuxFreqScale(0.5f + 0.25f * i);
+		// Every other resonator leaves out its quiet modes, so the bank gathers the live modes.
+		if (i % 2 == 1) {
+			res.setModeQuietLevel(0.05f);
+			res.setModeMaskLevel(1e-3f);
+		} else {
+			res.setModeQuietLevel(0f);
+			res.setModeMaskLevel(0f);
+		}
+		res.setInput(Block.newBlock(scene));
+		res.setOutput(Block.newBlock(scene));
+		return res;
+	}
+
+	private static int modes(int i) {
+		return 8 + 7 * i;
+	}
+
+	/**
+	 * Strike resonator i now and then, at a different point in the block each time.
+	 */
+	private static void excite(ModalResonator res, int i, int b) {
+		Block input = res.getInput();
+		input.zero();
+		if (b % (20 + 3 * i) == 0) {
+			FloatBuffer in = input.getStart();
+			in.put((b * 7 + i) % 128, 1000f * (i + 1));
+			in.put((b * 7 + i + 1) % 128, -500f * (i + 1));
+		}
+	}
+
+	private static void compare(int b, int i, FloatBuffer actual, FloatBuffer expected, int nFrames) {
+		for (int k = 0; k < nFrames; k++) {
+			if (Float.floatToIntBits(actual.get(k)) != Float.floatToIntBits(expected.get(k))) {
+				failures++;
+				System.out.println("Block " + b + " resonator " + i + " differs at " + k + ": " + actual.get(k) + " != " + expected.get(k));
+				return;
+			}
+		}
+	}
+
+	private static ModalData modalData(int nModes, long seed) {
+		Random random = new Random(seed);
+		StringBuilder md = new StringBuilder("1.0\t1.0\t1.0\n");
+		for (int m = 0; m < nModes; m++) {
+			float freq = 100f + random.nextFloat() * 8000f;
+			float damp = 1f + random.nextFloat() * 20f;
+			float amp = 0.05f + random.nextFloat();
+			md.append(freq).append('\t').append(damp).append('\t').append(amp).append('\n');
+		}
+		return read(md.toString());
+	}
+
+	private static ModalData modalData(float[] freqs) {
+		StringBuilder md = new StringBuilder("1.0\t1.0\t1.0\n");
+		for (int m = 0; m < freqs.length; m++)
+			md.append(freqs[m]).append('\t').append(5f + m).append('\t').append(1f - 0.1f * m).append('\n');
+		return read(md.toString());
+	}
+
+	private static ModalData read(String md) {
+		ModalData data = new ModalData();
+		try {
+			data.read(new ByteArrayInputStream(md.getBytes("US-ASCII")));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return data;
+	}
+
+	private static void check(String what, boolean ok) {
+		if (!ok) {
+			failures++;
+			System.out.println(what + " failed");
+		}
+	}
+}
@@ -0,0 +1,249 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import com.jphya.audio.DummyAudioOutputStream;
+import com.jphya.resonator.ModalCoefficientCache;
+import com.jphya.resonator.ModalData;
+import com.jphya.resonator.ModalResonator;
+import com.jphya.scene.Scene;
+import com.jphya.signal.Block;
+
+/**
+ * Checks that contact damping is quantized before the cache looks sets up, that a resonator keeps its old
+ * coefficients until the worker publishes the new ones and then swaps them in at the start of a block, that
+ * modulation waits for the worker too, and that closing the scene stops the worker without stranding
+ * requests.
+ * @author Sam
+ *
+ */
+public class TestModalCoefficientCache {
+
+	private static final String WORKER = "jPhya modal coefficients";
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws InterruptedException {
+		testQuantization();
+		testModulation();
+		testSwapIn();
+
+		if (failures > 0) {
+			System.out.println(failures + " failures");
+			System.exit(1);
+		}
+		System.out.println("Modal coefficient cache OK");
+	}
+
+	/**
+	 * Contact damping within half a step shares a set, and sounds the same as the step itself.
+	 */
+	private static void testQuantization() {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.setRealtime(false); // Sets are found straight away.
+		scene.tick();
+		ModalCoefficientCache cache = scene.getModalCoefficientCache();
+		ModalData data = modalData(12, 3);
+		float step = ModalCoefficientCache.CONTACT_DAMPING_STEP;
+
+		ModalResonator near = newResonator(scene, data);
+		check("one set for the data", cache.size() == 1);
+		near.addContactDamping(1f + 0.4f * step);
+		tick(near, 0);
+		check("rounded to the same set", cache.size() == 1);
+
+		ModalResonator above = newResonator(scene, data);
+		ModalResonator exact = newResonator(scene, data);
+		above.addContactDamping(1f + 0.6f * step);
+		exact.addContactDamping(1f + step);
+		for (int b = 0; b < 20; b++) {
+			FloatBuffer a = tick(above, b);
+			FloatBuffer e = tick(exact, b);
+			if (!same(a, e, scene.getNFrames())) {
+				check("rounded to the next step at block " + b, false);
+				break;
+			}
+		}
+		check("one set for the next step", cache.size() == 2);
+	}
+
+	/**
+	 * A modulated resonator whose scales change holds its coefficients, exactly like a twin that didn't change,
+	 * until the worker has calculated its target, and then moves towards it.
+	 */
+	private static void testModulation() throws InterruptedException {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.tick(); // Makes this the audio thread.
+		int nFrames = scene.getNFrames();
+		ModalData data = modalData(30, 9);
+
+		ModalResonator moving = newResonator(scene, data);
+		ModalResonator still = newResonator(scene, data);
+		moving.setModulated(true);
+		still.setModulated(true);
+		int b = 0;
+		for (; b < 10; b++) {
+			tick(moving, b);
+			tick(still, b);
+		}
+
+		moving.modulate(1.1f, 1f, 1f);
+		check("held for the block that changed", same(tick(moving, b), tick(still, b), nFrames));
+		boolean moved = false;
+		for (int end = ++b + 2000; b < end && !moved; b++) {
+			moved = !same(tick(moving, b), tick(still, b), nFrames);
+			if (!moved)
+				Thread.sleep(1); // Lets the worker run.
+		}
+		check("moved once the target arrived", moved);
+		scene.close();
+	}
+
+	/**
+	 * A resonator whose contact damping changes plays its old set, exactly like a twin that didn't change,
+	 * until the worker publishes the new set. From the block it is swapped in the resonator sounds exactly
+	 * like a twin with the same state given the new set at the start of that block.
+	 */
+	private static void testSwapIn() throws InterruptedException {
+		Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.tick(); // Makes this the audio thread.
+		int nFrames = scene.getNFrames();
+		ModalData data = modalData(40, 5);
+
+		ModalResonator changed = newResonator(scene, data);
+		ModalResonator old = newResonator(scene, data);
+		ModalResonator spare = newResonator(scene, data); // Kept in step with old until the swap.
+		int b = 0;
+		for (; b < 10; b++) {
+			tick(changed, b);
+			tick(old, b);
+			tick(spare, b);
+		}
+
+		changed.addContactDamping(2f);
+		int swap = -1;
+		for (int start = b; b < start + 2000 && swap < 0; b++) {
+			FloatBuffer c = tick(changed, b);
+			FloatBuffer o = tick(old, b);
+			if (same(c, o, nFrames)) {
+				tick(spare, b);
+				Thread.sleep(1); // Lets the worker run.
+				continue;
+			}
+			swap = b;
+			// The new set is cached by now, so the spare finds it at the start of its block.
+			spare.addContactDamping(2f);
+			check("new set from the start of the block", same(c, tick(spare, b), nFrames));
+		}
+		check("old set kept for the block that changed", swap > 10);
+		if (swap < 0)
+			return;
+		for (int end = b + 10; b < end; b++) {
+			if (!same(tick(changed, b), tick(spare, b), nFrames)) {
+				check("new set kept at block " + b, false);
+				break;
+			}
+		}
+
+		check("worker running", workerAlive());
+		scene.close();
+		for (int i = 0; i < 100 && workerAlive(); i++)
+			Thread.sleep(10);
+		check("worker stopped by close()", !workerAlive());
+
+		// Requests made after closing are served on the audio thread, and picked up by the next block.
+		changed.addContactDamping(1.5f);
+		check("old set kept after close", same(tick(changed, b), tick(spare, b), nFrames));
+		b++;
+		check("new set served after close", !same(tick(changed, b), tick(spare, b), nFrames));
+	}
+
+	private static boolean workerAlive() {
+		for (Thread t : Thread.getAllStackTraces().keySet())
+			if (WORKER.equals(t.getName()) && t.isAlive())
+				return true;
+		return false;
+	}
+
+	private static ModalResonator newResonator(Scene scene, ModalData data) {
+		ModalResonator res = new ModalResonator(scene);
+		res.setData(data);
+		res.setQuietLevel(0f);
+		res.setInput(Block.newBlock(scene));
+		res.setOutput(Block.newBlock(scene));
+		return res;
+	}
+
+	/**
+	 * Tick the resonator with repeatable noise for block b, and return its output.
+	 */
+	private static FloatBuffer tick(ModalResonator res, int b) {
+		Random random = new Random(b);
+		FloatBuffer in = res.getInput().getStart();
+		int nFrames = res.getInput().getScene().getNFrames();
+		for (int i = 0; i < nFrames; i++)
+			in.put(i, random.nextFloat() * 2f - 1f);
+		res.getOutput().zero();
+		return res.tickAdd().getStart();
+	}
+
+	private static boolean same(FloatBuffer a, FloatBuffer b, int nFrames) {
+		for (int i = 0; i < nFrames; i++)
+			if (Float.floatToIntBits(a.get(i)) != Float.floatToIntBits(b.get(i)))
+				return false;
+		return true;
+	}
+
+	private static ModalData modalData(int nModes, long seed) {
+		Random random = new Random(seed);
+		StringBuilder md = new StringBuilder("1.0\t1.0\t1.0\n");
+		for (int m = 0; m < nModes; m++) {
+			float freq = 100f + random.nextFloat() * 8000f;
+			float damp = 1f + random.nextFloat() * 20f;
+			float amp = 0.05f + random.nextFloat();
+			md.append(freq).append('\t').append(damp).append('\t').append(amp).append('\n');
+		}
+		ModalData data = new ModalData();
+		try {
+			data.read(new ByteArrayInputStream(md.toString().getBytes("US-ASCII")));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return data;
+	}
+
+	private static void check(String what, boolean ok) {
+		if (!ok) {
+			failures++;
+			System.out.println(what + " failed");
+		}
+	}
+}
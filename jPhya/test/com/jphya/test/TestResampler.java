@@ -0,0 +1,166 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.test;
+
+import java.nio.FloatBuffer;
+
+import com.jphya.signal.Resampler;
+
+/**
+ * Checks the polyphase resampler: that a sine keeps its frequency and amplitude, that the output does not
+ * depend on how the input is split into blocks, and that frequencies above the new Nyquist frequency are removed.
+ * @author Sam
+ *
+ */
+public class TestResampler {
+
+	private static final int[] SEAMS = { 1, 37, 128, 500, 3, 256, 64 }; // Irregular block sizes, repeated.
+	private static final int MAX_BLOCK = 512;
+	private static final int SETTLE = 200; // Output frames to skip while the filter fills.
+
+	private static int failures = 0;
+
+	public static void main(String[] args) {
+		testSine(44100, 48000, 1000f);
+		testSine(44100, 48000, 15000f);
+		testSine(48000, 44100, 1000f);
+		testSine(22050, 44100, 5000f);
+		testSeams(44100, 48000, 1);
+		testSeams(44100, 48000, 2);
+		testSeams(48000, 22050, 2);
+		testStopband(48000, 44100, 23000f);
+		testStopband(44100, 22050, 12000f);
+
+		if (failures > 0) {
+			System.out.println(failures + " failures");
+			System.exit(1);
+		}
+		System.out.println("All resampler tests passed");
+	}
+
+	/**
+	 * A sine resampled in irregular blocks should match the same sine sampled at the output rate.
+	 * The first output frame is centred on the first input frame, so there is no offset to allow for.
+	 */
+	private static void testSine(int inRate, int outRate, float freq) {
+		float amp = 0.5f;
+		float[] in = sine(inRate, freq, amp, inRate / 2, 0f);
+		float[] out = resample(inRate, outRate, 1, in, SEAMS);
+
+		int expected = (int) ((long) in.length * outRate / inRate);
+		check(inRate + " to " + outRate + " frames " + out.length + " of " + expected, out.length <= expected + 1 && out.length > expected - 100);
+
+		float maxError = 0f;
+		float peak = 0f;
+		for (int j = SETTLE; j < out.length; j++) {
+			float ideal = amp * (float) Math.sin(2 * Math.PI * freq * j / outRate);
+			maxError = Math.max(maxError, Math.abs(out[j] - ideal));
+			peak = Math.max(peak, Math.abs(out[j]));
+		}
+		check(inRate + " to " + outRate + " at " + freq + "Hz differs from the ideal sine by " + maxError, maxError < 1e-4f);
+		check(inRate + " to " + outRate + " at " + freq + "Hz peak " + peak, Math.abs(peak - amp) < 1e-4f);
+	}
+
+	/**
+	 * The output must be identical whether the input comes in one block or many, so that nothing
+	 * jumps at the block seams.
+	 */
+	private static void testSeams(int inRate, int outRate, int nChannels) {
+		float[] in = new float[inRate / 4 * nChannels];
+		for (int c = 0; c < nChannels; c++) {
+			float[] s = sine(inRate, 440f * (c + 1), 0.8f, inRate / 4, 0.3f * c);
+			for (int i = 0; i < s.length; i++)
+				in[i * nChannels + c] = s[i];
+		}
+		float[] whole = resample(inRate, outRate, nChannels, in, new int[] { MAX_BLOCK });
+		float[] split = resample(inRate, outRate, nChannels, in, SEAMS);
+		check(inRate + " to " + outRate + " x" + nChannels + " frames " + split.length + " != " + whole.length, split.length == whole.length);
+		for (int i = 0; i < Math.min(whole.length, split.length); i++) {
+			if (Float.floatToIntBits(whole[i]) != Float.floatToIntBits(split[i])) {
+				failures++;
+				System.out.println(inRate + " to " + outRate + " x" + nChannels + " differs at sample " + i + ": " + split[i] + " != " + whole[i]);
+				break;
+			}
+		}
+
+		// And no step between consecutive frames bigger than the sine itself can make.
+		float maxStep = 0.8f * 2f * (float) Math.sin(Math.PI * 440f * nChannels / outRate) * 1.01f;
+		for (int i = (SETTLE + 1) * nChannels; i < split.length; i++) {
+			float step = Math.abs(split[i] - split[i - nChannels]);
+			if (step > maxStep) {
+				failures++;
+				System.out.println(inRate + " to " + outRate + " x" + nChannels + " jumps by " + step + " at sample " + i);
+				break;
+			}
+		}
+	}
+
+	/**
+	 * A tone above the lower Nyquist frequency should be at least 60dB down.
+	 */
+	private static void testStopband(int inRate, int outRate, float freq) {
+		float[] out = resample(inRate, outRate, 1, sine(inRate, freq, 1f, inRate / 2, 0f), SEAMS);
+		float peak = 0f;
+		for (int j = SETTLE; j < out.length; j++)
+			peak = Math.max(peak, Math.abs(out[j]));
+		check(inRate + " to " + outRate + " at " + freq + "Hz leaks " + peak, peak < 1e-3f);
+	}
+
+	private static float[] sine(int rate, float freq, float amp, int frames, float phase) {
+		float[] s = new float[frames];
+		for (int i = 0; i < frames; i++)
+			s[i] = amp * (float) Math.sin(2 * Math.PI * freq * i / rate + phase);
+		return s;
+	}
+
+	/**
+	 * Resample interleaved input, passing it in blocks of the given sizes in turn.
+	 */
+	private static float[] resample(int inRate, int outRate, int nChannels, float[] in, int[] blocks) {
+		Resampler resampler = new Resampler(inRate, outRate, nChannels, MAX_BLOCK);
+		int frames = in.length / nChannels;
+		float[] out = new float[(int) ((long) frames * outRate / inRate + 2) * nChannels];
+		FloatBuffer outBuffer = FloatBuffer.wrap(out);
+		int done = 0;
+		for (int b = 0; done < frames; b++) {
+			int n = Math.min(blocks[b % blocks.length], frames - done);
+			resampler.getInput(n).put(in, done * nChannels, n * nChannels);
+			int made = resampler.process(n);
+			resampler.copyTo(outBuffer, 0, made);
+			done += n;
+		}
+		float[] result = new float[outBuffer.position()];
+		System.arraycopy(out, 0, result, 0, result.length);
+		return result;
+	}
+
+	private static void check(String what, boolean ok) {
+		if (!ok) {
+			failures++;
+			System.out.println(what);
+		}
+	}
+}
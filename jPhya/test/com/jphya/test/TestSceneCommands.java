@@ -0,0 +1,244 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import com.jphya.audio.DummyAudioOutputStream;
+import com.jphya.contact.Contact;
+import com.jphya.scene.Scene;
+import com.jphya.utility.IndexedList;
+
+/**
+ * Checks IndexedList, and that changes queued for the audio thread by other threads are applied at the next tick,
+ * in the order each thread made them.
+ * @author Sam
+ *
+ */
+public class TestSceneCommands {
+
+	private static final int THREADS = 4;
+	private static final int CHANGES = 1000; // Per thread, enough to fill several queue segments.
+
+	private static int failures = 0;
+
+	public static void main(String[] args) throws InterruptedException {
+		testIndexedList();
+		testIterator();
+		testQueuedChanges();
+		testDeferredDelete();
+
+		if (failures > 0) {
+			System.out.println(failures + " failures");
+			System.exit(1);
+		}
+		System.out.println("All scene command tests passed");
+	}
+
+	private static class Member implements IndexedList.Member {
+		private int index = -1;
+
+		public int getListIndex() {
+			return index;
+		}
+
+		public void setListIndex(int index) {
+			this.index = index;
+		}
+	}
+
+	private static Member[] members(int n) {
+		Member[] m = new Member[n];
+		for (int i = 0; i < n; i++)
+			m[i] = new Member();
+		return m;
+	}
+
+	private static void testIndexedList() {
+		IndexedList<Member> list = new IndexedList<Member>();
+		Member[] m = members(40); // Enough to grow the list past its initial capacity.
+		for (Member e : m)
+			check("add", list.add(e));
+		check("add twice", !list.add(m[0]));
+		check("size", list.size() == m.length);
+		checkIndices("after adds", list);
+
+		// Removing from the middle moves the last member into the freed slot.
+		check("remove", list.remove(m[5]));
+		check("removed index", m[5].getListIndex() == -1);
+		check("removed contains", !list.contains(m[5]));
+		check("remove twice", !list.remove(m[5]));
+		check("swapped in", list.get(5) == m[39] && m[39].getListIndex() == 5);
+		checkIndices("after remove", list);
+
+		// Removing the last member moves nothing.
+		Member last = list.get(list.size() - 1);
+		check("remove last", list.remove(last));
+		checkIndices("after remove last", list);
+
+		// A stale index from another list is not mistaken for membership.
+		IndexedList<Member> other = new IndexedList<Member>();
+		Member stranger = new Member();
+		other.add(stranger);
+		check("stranger", !list.contains(stranger) && !list.remove(stranger));
+		check("other object", !list.contains("not a member"));
+
+		list.clear();
+		check("clear", list.isEmpty() && m[0].getListIndex() == -1);
+	}
+
+	private static void testIterator() {
+		IndexedList<Member> list = new IndexedList<Member>();
+		Member[] m = members(10);
+		for (Member e : m)
+			list.add(e);
+
+		// Remove every even member through the iterator. Each member must be visited exactly once,
+		// including the ones swapped into a removed slot.
+		int visited = 0;
+		for (Iterator<Member> it = list.iterator(); it.hasNext();) {
+			Member e = it.next();
+			visited++;
+			int i = indexOf(m, e);
+			if (i % 2 == 0)
+				it.remove();
+		}
+		check("iterator visits", visited == m.length);
+		check("iterator size", list.size() == m.length / 2);
+		for (int i = 0; i < m.length; i++)
+			check("iterator member " + i, list.contains(m[i]) == (i % 2 != 0));
+		checkIndices("after iterator", list);
+
+		Iterator<Member> it = list.iterator();
+		boolean threw = false;
+		try {
+			it.remove();
+		} catch (IllegalStateException e) {
+			threw = true;
+		}
+		check("remove before next", threw);
+	}
+
+	/**
+	 * Each thread adds and removes its own contacts many times, ending with them added.
+	 * None of it should be visible until the scene ticks, and then only the final state.
+	 */
+	private static void testQueuedChanges() throws InterruptedException {
+		final Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		scene.tick(); // Makes this the audio thread.
+
+		final List<Contact> added = new ArrayList<Contact>();
+		Thread[] threads = new Thread[THREADS];
+		for (int t = 0; t < THREADS; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					Contact kept = Contact.newContact(scene);
+					Contact dropped = Contact.newContact(scene);
+					for (int i = 0; i < CHANGES; i++) {
+						scene.removeContact(kept);
+						scene.addContact(kept);
+						scene.removeContact(dropped);
+						scene.addContact(dropped);
+					}
+					scene.removeContact(dropped);
+					synchronized (added) {
+						added.add(kept);
+					}
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread t : threads)
+			t.join();
+
+		check("not applied before tick", scene.getActiveContacts().isEmpty());
+		scene.tick();
+
+		scene.lock();
+		try {
+			check("applied at tick", scene.getActiveContacts().size() == THREADS);
+			for (Contact c : added)
+				check("kept contact", scene.getActiveContacts().contains(c));
+		} finally {
+			scene.unlock();
+		}
+	}
+
+	/**
+	 * A contact deleted by another thread stays in the scene until the next tick, which takes it apart and
+	 * returns it to the allocation manager.
+	 */
+	private static void testDeferredDelete() throws InterruptedException {
+		final Scene scene = new Scene(new DummyAudioOutputStream(), 128);
+		final Contact c = Contact.newContact(scene);
+		scene.tick();
+		check("contact added", scene.getActiveContacts().contains(c));
+
+		Thread deleter = new Thread() {
+			public void run() {
+				Contact.deleteContact(c);
+			}
+		};
+		deleter.start();
+		deleter.join();
+
+		check("delete deferred", scene.getActiveContacts().contains(c));
+		check("delete queued", !scene.isIdle());
+		scene.tick();
+		check("deleted at tick", !scene.getActiveContacts().contains(c));
+		check("returned", scene.getAllocationManager().acquireObject(Contact.class) == c);
+		check("idle", scene.isIdle());
+	}
+
+	private static int indexOf(Member[] m, Member e) {
+		for (int i = 0; i < m.length; i++)
+			if (m[i] == e)
+				return i;
+		return -1;
+	}
+
+	/**
+	 * Every member must know its own slot.
+	 */
+	private static void checkIndices(String what, IndexedList<Member> list) {
+		for (int i = 0; i < list.size(); i++) {
+			if (list.get(i).getListIndex() != i) {
+				failures++;
+				System.out.println(what + ": member in slot " + i + " has index " + list.get(i).getListIndex());
+				return;
+			}
+		}
+	}
+
+	private static void check(String what, boolean ok) {
+		if (!ok) {
+			failures++;
+			System.out.println(what + " failed");
+		}
+	}
+}
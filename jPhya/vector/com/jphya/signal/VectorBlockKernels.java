@@ -0,0 +1,166 @@
+/*
+Copyright (c) 2009, Sam Bayless
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+ are permitted provided that the following conditions are met:
+
+ * Redistributions of source code must retain the above copyright notice, 
+   this list of conditions and the following disclaimer.
+ * Redistributions in binary form must reproduce the above copyright notice, 
+   this list of conditions and the following disclaimer in the documentation and/or 
+   other materials provided with the distribution.
+ * Neither the name of 'JPhya' nor the names of its contributors may be used 
+   to endorse or promote products derived from this software without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND ANY EXPRESS 
+OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY 
+AND FITNESS FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR 
+CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL 
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; 
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY,
+WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY
+OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.jphya.signal;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Block kernels written with the incubating JDK Vector API. 
+ * This is built separately, into jphya-vector.jar, because it needs JDK 17 and --add-modules jdk.incubator.vector
+ * both to compile and to run. BlockKernels loads it by name, and falls back to the scalar kernels if it can't.
+ * <p>
+ * Each kernel processes whole vectors of the preferred species, then finishes the block with scalar code.
+ * Results are bit-identical to ScalarBlockKernels, except fadeout, which computes each gain directly instead 
+ * of summing the increment.
+ * @author Sam
+ *
+ */
+public final class VectorBlockKernels extends BlockKernels {
+
+	private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+	private static final float PI = (float) Math.PI;
+
+	/**
+	 * 0, 1, 2, ... one per lane.
+	 */
+	private final FloatVector iota;
+
+	public VectorBlockKernels() {
+		if (SPECIES.length() < 4)
+			throw new UnsupportedOperationException("No vector hardware");
+		float[] lanes = new float[SPECIES.length()];
+		for (int i = 0; i < lanes.length; i++)
+			lanes[i] = i;
+		iota = FloatVector.fromArray(SPECIES, lanes, 0);
+	}
+
+	public String getName() {
+		return "vector" + SPECIES.vectorBitSize();
+	}
+
+	public void add(float[] dst, float[] src, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector.fromArray(SPECIES, dst, i)
+					.add(FloatVector.fromArray(SPECIES, src, i))
+					.intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] += src[i];
+	}
+
+	public void addWithMultiply(float[] dst, float[] src, float multfactor, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			// Multiply then add, not fma, to round the same as the scalar loop.
+			FloatVector.fromArray(SPECIES, src, i).mul(multfactor)
+					.add(FloatVector.fromArray(SPECIES, dst, i))
+					.intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] += src[i] * multfactor;
+	}
+
+	public void copyWithMultiply(float[] dst, float[] src, float multfactor, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector.fromArray(SPECIES, src, i).mul(multfactor).intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] = src[i] * multfactor;
+	}
+
+	public void multiplyBy(float[] dst, float multfactor, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector.fromArray(SPECIES, dst, i).mul(multfactor).intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] *= multfactor;
+	}
+
+	public void square(float[] dst, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector v = FloatVector.fromArray(SPECIES, dst, i);
+			v.mul(v).intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] = dst[i] * dst[i];
+	}
+
+	public void fadeout(float[] dst, int from, int to, int nFrames) {
+		float incr = -1f / ((float) nFrames);
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector mult = iota.add((float) i).mul(incr).add(1f);
+			FloatVector.fromArray(SPECIES, dst, i).mul(mult).intoArray(dst, i);
+		}
+		for (; i < to; i++)
+			dst[i] *= ((float) i) * incr + 1f;
+	}
+
+	public void inverseDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector dist = distance(i, distanceStart, slope, minDistance);
+			FloatVector.fromArray(SPECIES, dst, i).div(dist).intoArray(dst, i);
+		}
+		for (; i < to; i++) {
+			float dist = slope * ((float) i) + distanceStart;
+			if (dist < minDistance)
+				dist = 1f;
+			dst[i] = dst[i] / dist;
+		}
+	}
+
+	public void inverseSquareDistance(float[] dst, float distanceStart, float slope, float minDistance, int from, int to) {
+		int i = from;
+		for (int bound = from + SPECIES.loopBound(to - from); i < bound; i += SPECIES.length()) {
+			FloatVector dist = distance(i, distanceStart, slope, minDistance);
+			FloatVector.fromArray(SPECIES, dst, i).div(dist.mul(dist).mul(4f).mul(PI)).intoArray(dst, i);
+		}
+		for (; i < to; i++) {
+			float dist = slope * ((float) i) + distanceStart;
+			if (dist < minDistance)
+				dist = 1f;
+			dst[i] = dst[i] / (dist * dist * 4 * PI);
+		}
+	}
+
+	/**
+	 * The distances at samples i, i+1, ... with those below minDistance replaced by 1.
+	 */
+	private FloatVector distance(int i, float distanceStart, float slope, float minDistance) {
+		FloatVector dist = iota.add((float) i).mul(slope).add(distanceStart);
+		VectorMask<Float> near = dist.compare(VectorOperators.LT, minDistance);
+		return dist.blend(1f, near);
+	}
+
+}